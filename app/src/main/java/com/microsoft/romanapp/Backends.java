@@ -0,0 +1,274 @@
+//
+// Copyright (c) Microsoft Corporation. All rights reserved.
+//
+
+package com.microsoft.romanapp;
+
+import android.os.SystemClock;
+
+import com.microsoft.romanapp.core.BackendException;
+import com.microsoft.romanapp.core.CircuitBreaker;
+import com.microsoft.romanapp.core.Clock;
+import com.microsoft.romanapp.core.DedupingLaunchBackend;
+import com.microsoft.romanapp.core.DiscoveryBackend;
+import com.microsoft.romanapp.core.LaunchAttemptListener;
+import com.microsoft.romanapp.core.LaunchBackend;
+import com.microsoft.romanapp.core.LaunchCallback;
+import com.microsoft.romanapp.core.LaunchStatus;
+import com.microsoft.romanapp.core.Prewarmer;
+import com.microsoft.romanapp.core.RemoteDevice;
+import com.microsoft.romanapp.core.RetryPolicy;
+import com.microsoft.romanapp.core.RetryingLaunchBackend;
+import com.microsoft.romanapp.core.simulator.SimulatedBackend;
+import com.microsoft.romanapp.core.simulator.SimulatorConfig;
+import com.microsoft.romanapp.core.trace.RecordingDiscoveryBackend;
+import com.microsoft.romanapp.core.trace.TraceReplayBackend;
+import com.microsoft.romanapp.core.trace.TraceWriter;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * Picks the discovery and launch backends: the connected devices SDK, or the local simulator
+ * in builds with USE_SIMULATOR set (the "simulated" build type).
+ * Launches are retried and guarded by a per device circuit breaker, see RetryingLaunchBackend,
+ * identical launches share one call, see DedupingLaunchBackend, and connections can be
+ * prepared ahead of a launch, see Prewarmer. Discovery events can be recorded to a trace file
+ * for replaying them off the device, see RecordingDiscoveryBackend, or played back on the device
+ * in place of discovery, see replayDiscoveryTrace.
+ */
+public final class Backends {
+    // Launch retries: 4 attempts, backing off from 0.5 s to at most 8 s
+    private static final RetryPolicy LAUNCH_RETRY_POLICY = new RetryPolicy.Builder()
+            .setMaxAttempts(4)
+            .setBackoff(500, 8000, 2)
+            .getResult();
+    // A device that failed every attempt of a launch is not tried again for 30 s. A lower
+    // threshold would open the circuit before the last retries of a launch could run.
+    private static final int CIRCUIT_FAILURE_THRESHOLD = LAUNCH_RETRY_POLICY.getMaxAttempts();
+    private static final long CIRCUIT_OPEN_MS = 30 * 1000;
+    // A launch that repeats a successful one within 2 s is not sent again
+    private static final long LAUNCH_REPEAT_WINDOW_MS = 2000;
+    // At most 4 devices are prewarmed at a time, each for at most 30 s unless it is launched on
+    private static final int PREWARM_MAX_DEVICES = 4;
+    private static final long PREWARM_UNUSED_MS = 30 * 1000;
+
+    private static final Clock sClock = new Clock() {
+        @Override
+        public long now() {
+            return SystemClock.elapsedRealtime();
+        }
+    };
+    private static final CircuitBreaker sCircuitBreaker = new CircuitBreaker(
+            CIRCUIT_FAILURE_THRESHOLD, CIRCUIT_OPEN_MS, sClock);
+    private static final ScheduledExecutorService sRetryScheduler = Executors.newSingleThreadScheduledExecutor();
+
+    private static RecordingDiscoveryBackend sDiscovery;
+    private static RetryingLaunchBackend sRetryingLauncher;
+    private static Prewarmer sPrewarmer;
+    private static DedupingLaunchBackend sLauncher;
+    // Kept across backend changes, since the user switches it on and off
+    private static boolean sPrewarmEnabled = false;
+
+    private Backends() {
+    }
+
+    public static synchronized DiscoveryBackend discovery() {
+        init();
+        return sDiscovery;
+    }
+
+    public static synchronized LaunchBackend launcher() {
+        init();
+        return sLauncher;
+    }
+
+    public static synchronized Prewarmer prewarmer() {
+        init();
+        return sPrewarmer;
+    }
+
+    public static synchronized void setPrewarmEnabled(boolean enabled) {
+        sPrewarmEnabled = enabled;
+        if (sPrewarmer != null) {
+            sPrewarmer.setEnabled(enabled);
+        }
+    }
+
+    public static synchronized boolean isPrewarmEnabled() {
+        return sPrewarmEnabled;
+    }
+
+    public static CircuitBreaker circuitBreaker() {
+        return sCircuitBreaker;
+    }
+
+    public static synchronized void addLaunchAttemptListener(LaunchAttemptListener listener) {
+        init();
+        sRetryingLauncher.addListener(listener);
+    }
+
+    public static synchronized void removeLaunchAttemptListener(LaunchAttemptListener listener) {
+        if (sRetryingLauncher != null) {
+            sRetryingLauncher.removeListener(listener);
+        }
+    }
+
+    public static synchronized void addLaunchDedupListener(DedupingLaunchBackend.Listener listener) {
+        init();
+        sLauncher.addListener(listener);
+    }
+
+    public static synchronized void removeLaunchDedupListener(DedupingLaunchBackend.Listener listener) {
+        if (sLauncher != null) {
+            sLauncher.removeListener(listener);
+        }
+    }
+
+    /**
+     * Starts writing every discovery event to a new trace file, replacing any running recording.
+     */
+    public static synchronized void startDiscoveryTrace(File file) throws IOException {
+        init();
+        stopDiscoveryTrace();
+        sDiscovery.setWriter(new TraceWriter(new FileOutputStream(file)));
+    }
+
+    /**
+     * Stops the recording and closes the trace file, returns the number of events it holds.
+     */
+    public static synchronized int stopDiscoveryTrace() {
+        TraceWriter writer = sDiscovery != null ? sDiscovery.getWriter() : null;
+        if (writer == null) {
+            return 0;
+        }
+        sDiscovery.setWriter(null);
+        try {
+            writer.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return writer.getEvents();
+    }
+
+    public static synchronized boolean isRecordingDiscoveryTrace() {
+        return sDiscovery != null && sDiscovery.getWriter() != null;
+    }
+
+    /**
+     * Makes discovery play back a recorded trace file, at the recorded pace, instead of discovering
+     * devices. Launches still go through the current launch backend. Takes effect when discovery
+     * is started again, see DiscoverySession.restart.
+     */
+    public static synchronized void replayDiscoveryTrace(File file) {
+        init();
+        stopDiscoveryTrace();
+        sDiscovery = new RecordingDiscoveryBackend(new TraceReplayBackend(file, 1));
+    }
+
+    public static boolean isSimulated() {
+        return BuildConfig.USE_SIMULATOR;
+    }
+
+    /**
+     * Replaces both backends, for tests.
+     */
+    public static synchronized void set(DiscoveryBackend discovery, LaunchBackend launcher) {
+        stopDiscoveryTrace();
+        sDiscovery = new RecordingDiscoveryBackend(discovery);
+        wrap(launcher);
+    }
+
+    private static void init() {
+        if (sDiscovery != null) {
+            return;
+        }
+        if (isSimulated()) {
+            SimulatedBackend simulator = new SimulatedBackend(new SimulatorConfig.Builder()
+                    .setDeviceCount(BuildConfig.SIMULATOR_DEVICE_COUNT)
+                    .setAddsPerSecond(500)
+                    .getResult());
+            sDiscovery = new RecordingDiscoveryBackend(simulator);
+            wrap(simulator);
+        } else {
+            sDiscovery = new RecordingDiscoveryBackend(new SdkDiscoveryBackend());
+            wrap(new SdkLaunchBackend());
+        }
+    }
+
+    // Identical launches are merged before they are retried, every attempt is metered,
+    // and the retries, fast failures and merged launches are counted
+    private static void wrap(final LaunchBackend launcher) {
+        sRetryingLauncher = new RetryingLaunchBackend(new MeteredLaunchBackend(launcher),
+                LAUNCH_RETRY_POLICY, sCircuitBreaker, sRetryScheduler);
+        sRetryingLauncher.addListener(new LaunchAttemptListener() {
+            @Override
+            public void onRetryScheduled(RemoteDevice device, int attempt, LaunchStatus status, long delayMs) {
+                Metrics.counter(Metrics.LAUNCH_RETRIES).increment();
+            }
+
+            @Override
+            public void onRejected(RemoteDevice device, long retryInMs) {
+                Metrics.counter(Metrics.LAUNCH_REJECTED).increment();
+            }
+
+            @Override
+            public void onCircuitStateChanged(RemoteDevice device, CircuitBreaker.State state, int failures) {
+                if (state == CircuitBreaker.State.OPEN) {
+                    Metrics.counter(Metrics.LAUNCH_CIRCUIT_OPENED).increment();
+                }
+            }
+        });
+        Prewarmer.Warmer warmer = launcher instanceof Prewarmer.Warmer ? (Prewarmer.Warmer) launcher
+                : new Prewarmer.Warmer() {
+                    @Override
+                    public void prewarm(RemoteDevice device) throws BackendException {
+                        throw new BackendException("Launch backend cannot prewarm connections");
+                    }
+
+                    @Override
+                    public void cancel(String id) {
+                    }
+                };
+        sPrewarmer = new Prewarmer(sRetryingLauncher, warmer, PREWARM_MAX_DEVICES, PREWARM_UNUSED_MS, sClock);
+        sPrewarmer.setEnabled(sPrewarmEnabled);
+        sLauncher = new DedupingLaunchBackend(sPrewarmer, LAUNCH_REPEAT_WINDOW_MS, sClock);
+        sLauncher.addListener(new DedupingLaunchBackend.Listener() {
+            @Override
+            public void onJoined(RemoteDevice device, String uri, int waiting) {
+                Metrics.counter(Metrics.LAUNCH_DEDUPLICATED).increment();
+            }
+
+            @Override
+            public void onSuppressed(RemoteDevice device, String uri, long sinceMs) {
+                Metrics.counter(Metrics.LAUNCH_SUPPRESSED).increment();
+            }
+        });
+    }
+
+    // Records the time from each launch call to its completion, split by status
+    private static final class MeteredLaunchBackend implements LaunchBackend {
+        private final LaunchBackend mBackend;
+
+        MeteredLaunchBackend(LaunchBackend backend) {
+            mBackend = backend;
+        }
+
+        @Override
+        public void launchUri(RemoteDevice device, String uri, final LaunchCallback callback)
+                throws BackendException {
+            final long start = SystemClock.elapsedRealtime();
+            mBackend.launchUri(device, uri, new LaunchCallback() {
+                @Override
+                public void onCompleted(LaunchStatus status) {
+                    Metrics.histogram(Metrics.launchLatency(status))
+                            .record(SystemClock.elapsedRealtime() - start);
+                    callback.onCompleted(status);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,138 @@
+//
+// Copyright (c) Microsoft Corporation. All rights reserved.
+//
+
+package com.microsoft.romanapp;
+
+import android.app.Activity;
+import android.os.Bundle;
+import android.support.v7.widget.RecyclerView;
+import android.util.Log;
+import android.util.SparseBooleanArray;
+import android.view.View;
+import android.widget.ArrayAdapter;
+import android.widget.Button;
+import android.widget.EditText;
+import android.widget.ListView;
+import android.widget.TextView;
+
+import com.microsoft.romanapp.core.DeviceSnapshot;
+import com.microsoft.romanapp.core.LaunchStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.microsoft.romanapp.core.LaunchStatus.SUCCESS;
+
+/**
+ * Launches the same URI on every selected device with a bounded number of launches in flight.
+ */
+public class BatchLaunchActivity extends Activity {
+    private static final String TAG = BatchLaunchActivity.class.getName();
+    private static final int DEFAULT_MAX_IN_FLIGHT = 4;
+
+    private final List<Device> mDevices = new ArrayList<>();
+    private ListView mDeviceList;
+    private EditText mUriEt;
+    private EditText mMaxInFlightEt;
+    private Button mLaunchButton;
+    private TextView mProgressTv;
+    private LogRecyclerAdapter mLaunchLog;
+    private BatchLauncher mLauncher;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.batch_launch);
+
+        mDeviceList = (ListView) findViewById(R.id.batch_device_list);
+        mUriEt = (EditText) findViewById(R.id.batch_uri_edit_text);
+        mMaxInFlightEt = (EditText) findViewById(R.id.batch_max_in_flight_edit_text);
+        mLaunchButton = (Button) findViewById(R.id.batch_launch_button);
+        mProgressTv = (TextView) findViewById(R.id.batch_progress);
+        mLaunchLog = new LogRecyclerAdapter((RecyclerView) findViewById(R.id.batch_launch_log),
+                LogRecyclerAdapter.DEFAULT_CAPACITY);
+
+        // Only devices that discovery has reported, and recently, can be launched on
+        DeviceSnapshot<Device> snapshot = DiscoverySession.getInstance(this).getSnapshot();
+        List<String> names = new ArrayList<>();
+        for (Device device : snapshot.getRows()) {
+            if (!device.isCached() && !device.isStale()) {
+                mDevices.add(device);
+                names.add(device.getName() + " (" + device.getType() + ")");
+            }
+        }
+        mDeviceList.setAdapter(new ArrayAdapter<>(this, android.R.layout.simple_list_item_multiple_choice, names));
+    }
+
+    @Override
+    protected void onDestroy() {
+        if (mLauncher != null) {
+            mLauncher.cancel();
+        }
+        super.onDestroy();
+    }
+
+    public void onBatchLaunchClick(View view) {
+        List<Device> selected = new ArrayList<>();
+        SparseBooleanArray checked = mDeviceList.getCheckedItemPositions();
+        for (int i = 0; i < mDevices.size(); i++) {
+            if (checked != null && checked.get(i)) {
+                selected.add(mDevices.get(i));
+            }
+        }
+        if (selected.isEmpty()) {
+            logLaunchMessage("No devices selected");
+            return;
+        }
+
+        int maxInFlight = DEFAULT_MAX_IN_FLIGHT;
+        try {
+            maxInFlight = Math.max(1, Integer.parseInt(mMaxInFlightEt.getText().toString()));
+        } catch (NumberFormatException e) {
+            Log.w(TAG, "Invalid max in flight, using " + DEFAULT_MAX_IN_FLIGHT);
+        }
+
+        String url = mUriEt.getText().toString();
+        logLaunchMessage("Launching URI: " + url + " on " + selected.size() + " devices, " + maxInFlight + " at a time");
+        mLaunchButton.setEnabled(false);
+        mLauncher = new BatchLauncher(selected, url, maxInFlight, new BatchLauncher.Listener() {
+            @Override
+            public void onDeviceCompleted(Device device, LaunchStatus status) {
+                if (status == SUCCESS) {
+                    logLaunchMessage(device.getName() + ": launch succeeded");
+                } else {
+                    logLaunchMessage(device.getName() + ": launch failed with status " + status.toString());
+                }
+            }
+
+            @Override
+            public void onProgress(final int completed, final int total, final int succeeded, final int failed) {
+                runOnUiThread(new Runnable() {
+                    @Override
+                    public void run() {
+                        mProgressTv.setText(completed + "/" + total + " done, "
+                                + succeeded + " succeeded, " + failed + " failed");
+                    }
+                });
+            }
+
+            @Override
+            public void onFinished(int succeeded, int failed) {
+                Log.i(TAG, "Batch launch finished: " + succeeded + " succeeded, " + failed + " failed");
+                logLaunchMessage("Batch launch finished: " + succeeded + " succeeded, " + failed + " failed");
+                runOnUiThread(new Runnable() {
+                    @Override
+                    public void run() {
+                        mLaunchButton.setEnabled(true);
+                    }
+                });
+            }
+        });
+        mLauncher.start();
+    }
+
+    private void logLaunchMessage(final String message) {
+        mLaunchLog.append(message);
+    }
+}
@@ -0,0 +1,144 @@
+//
+// Copyright (c) Microsoft Corporation. All rights reserved.
+//
+
+package com.microsoft.romanapp;
+
+import android.util.Log;
+
+import com.microsoft.romanapp.core.BackendException;
+import com.microsoft.romanapp.core.LaunchCallback;
+import com.microsoft.romanapp.core.LaunchStatus;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Queue;
+
+import static com.microsoft.romanapp.core.LaunchStatus.SUCCESS;
+
+/**
+ * Launches one URI on many devices, keeping at most a fixed number of launches in flight.
+ * Listener callbacks arrive on the backend's callback threads.
+ */
+public class BatchLauncher {
+    private static final String TAG = BatchLauncher.class.getName();
+
+    public interface Listener {
+        void onDeviceCompleted(Device device, LaunchStatus status);
+        void onProgress(int completed, int total, int succeeded, int failed);
+        void onFinished(int succeeded, int failed);
+    }
+
+    private final Queue<Device> mQueue;
+    private final String mUri;
+    private final int mMaxInFlight;
+    private final Listener mListener;
+    private final int mTotal;
+
+    // guarded by this
+    private int mInFlight = 0;
+    private int mSucceeded = 0;
+    private int mFailed = 0;
+    private boolean mCancelled = false;
+    // true while a thread is filling slots, completions during that time only free their slot
+    private boolean mLaunching = false;
+
+    public BatchLauncher(Collection<Device> devices, String uri, int maxInFlight, Listener listener) {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("maxInFlight must be at least 1");
+        }
+        mQueue = new ArrayDeque<>(devices);
+        mUri = uri;
+        mMaxInFlight = maxInFlight;
+        mListener = listener;
+        mTotal = devices.size();
+    }
+
+    public void start() {
+        if (mTotal == 0) {
+            mListener.onFinished(0, 0);
+            return;
+        }
+        launchNext();
+    }
+
+    /**
+     * Stops issuing new launches. The ones in flight still complete, but the listener is no
+     * longer called, so it may go away with its activity.
+     */
+    public synchronized void cancel() {
+        mCancelled = true;
+        mQueue.clear();
+    }
+
+    // Fills the free launch slots from the queue. Launches that complete synchronously
+    // free their slot for the running loop instead of recursing into it.
+    private void launchNext() {
+        synchronized (this) {
+            if (mLaunching) {
+                return;
+            }
+            mLaunching = true;
+        }
+        while (true) {
+            Device device;
+            synchronized (this) {
+                if (mCancelled || mInFlight >= mMaxInFlight || mQueue.isEmpty()) {
+                    mLaunching = false;
+                    return;
+                }
+                device = mQueue.poll();
+                mInFlight++;
+            }
+            launch(device);
+        }
+    }
+
+    private void launch(final Device device) {
+        if (device.getRemote() == null) {
+            onCompleted(device, LaunchStatus.REMOTE_SYSTEM_UNAVAILABLE);
+            return;
+        }
+        try {
+            Backends.launcher().launchUri(device.getRemote(), mUri,
+                    new LaunchCallback() {
+                        @Override
+                        public void onCompleted(LaunchStatus status) {
+                            BatchLauncher.this.onCompleted(device, status);
+                        }
+                    });
+        } catch (BackendException e) {
+            Log.e(TAG, "Could not launch on " + device.getName() + ": " + e.getMessage());
+            onCompleted(device, LaunchStatus.UNKNOWN);
+        }
+    }
+
+    private void onCompleted(Device device, LaunchStatus status) {
+        int completed;
+        int succeeded;
+        int failed;
+        boolean finished;
+        synchronized (this) {
+            mInFlight--;
+            if (mCancelled) {
+                return;
+            }
+            if (status == SUCCESS) {
+                mSucceeded++;
+            } else {
+                mFailed++;
+            }
+            succeeded = mSucceeded;
+            failed = mFailed;
+            completed = succeeded + failed;
+            finished = mInFlight == 0 && mQueue.isEmpty();
+        }
+        mListener.onDeviceCompleted(device, status);
+        mListener.onProgress(completed, mTotal, succeeded, failed);
+        if (finished) {
+            mListener.onFinished(succeeded, failed);
+        } else {
+            launchNext();
+        }
+    }
+}
@@ -7,71 +7,119 @@ package com.microsoft.romanapp;
 
 import android.os.Parcel;
 import android.os.Parcelable;
+import android.text.format.DateUtils;
 import android.util.Log;
 
 import com.microsoft.connecteddevices.RemoteSystem;
+import com.microsoft.romanapp.core.DeviceKind;
+import com.microsoft.romanapp.core.DeviceRecord;
+import com.microsoft.romanapp.core.RemoteDevice;
 
 import java.util.NoSuchElementException;
 
-public class Device implements Parcelable {
-    private String name;
-    private String type;
-    private String id;
-    private boolean isAvailableByProximity;
-    private RemoteSystem system = null;
+public class Device extends DeviceRecord implements Parcelable {
+    private static final String TRANSPORTS_CLOUD = "Cloud";
+    private static final String TRANSPORTS_CLOUD_AND_PROXIMAL = "Cloud, Proximal";
+
+    // Display text for the device list, built once per change so that binding a row allocates nothing
+    private String mTypeLabel = null;
+    // For cached and stale devices the label holds a relative time, rebuilt once it is this old
+    private long mTypeLabelExpiresAt = 0;
 
     Device(RemoteSystem system) {
-        this.system = system;
-        id = system.getId();
-        name = system.getDisplayName();
-        type = system.getKind().toString();
-        isAvailableByProximity = system.isAvailableByProximity();
+        super(new RemoteSystemDevice(system));
+    }
+
+    Device(RemoteDevice remote) {
+        super(remote);
     }
 
-    protected Device(Parcel in) {
-        id = in.readString();
+    /**
+     * Creates a device remembered from an earlier session, it has no RemoteSystem until discovery finds it again.
+     */
+    Device(String id, String name, DeviceKind kind, boolean isAvailableByProximity, long lastSeen) {
+        super(id, name, kind, isAvailableByProximity, lastSeen);
+    }
+
+    private Device(Device other) {
+        super(other);
+    }
 
+    /**
+     * Returns the parcelled device, or null if its RemoteDevice is no longer in storage.
+     */
+    private static Device fromParcel(Parcel in) {
+        String id = in.readString();
         try {
-            system = DeviceStorage.getDevice(id);
-            name = system.getDisplayName();
-            type = system.getKind().toString();
-            isAvailableByProximity = system.isAvailableByProximity();
+            return new Device(DeviceStorage.getDevice(id));
         } catch (NoSuchElementException e) {
-            Log.e("Device", "Device was not found in storage");
-            e.printStackTrace();
+            Log.e("Device", "Device " + id + " was not found in storage");
+            return null;
         }
     }
 
     @Override
-    public int describeContents() {
-        return 0;
+    public Device asStale() {
+        return (Device) super.asStale();
     }
 
     @Override
-    public void writeToParcel(Parcel dest, int flags) {
-        dest.writeString(id);
-        // The system must be stored since it is not parcelable
-        try {
-            DeviceStorage.addDevice(id, system);
-        } catch (RuntimeException e) {
-            Log.e("Device", "Device already has been added to storage");
-            e.printStackTrace();
+    protected Device copy() {
+        return new Device(this);
+    }
+
+    /**
+     * The type shown in the device list, with the last seen time for cached and stale devices.
+     */
+    public String getTypeLabel() {
+        if (!isCached() && !isStale()) {
+            if (mTypeLabel == null) {
+                mTypeLabel = getType();
+            }
+            return mTypeLabel;
         }
+        long now = System.currentTimeMillis();
+        if (mTypeLabel == null || now >= mTypeLabelExpiresAt) {
+            // remembered from an earlier session or not reported for a while
+            mTypeLabel = getType() + ", last seen " + DateUtils.getRelativeTimeSpanString(getLastSeen(), now,
+                    DateUtils.MINUTE_IN_MILLIS);
+            mTypeLabelExpiresAt = now + DateUtils.MINUTE_IN_MILLIS;
+        }
+        return mTypeLabel;
     }
 
-    public String getName() { return name; }
+    public String getTransportsLabel() {
+        return getIsAvailableByProximity() ? TRANSPORTS_CLOUD_AND_PROXIMAL : TRANSPORTS_CLOUD;
+    }
 
-    public String getType() { return type; }
+    @Override
+    public int describeContents() {
+        return 0;
+    }
 
-    public RemoteSystem getSystem() { return system; }
+    @Override
+    public void writeToParcel(Parcel dest, int flags) {
+        if (isCached()) {
+            // the other side could only rebuild a device without name or kind
+            throw new IllegalStateException("Device " + getId() + " has no remote device to parcel");
+        }
+        dest.writeString(getId());
+        // The remote device must be stored since it is not parcelable
+        DeviceStorage.addDevice(getId(), getRemote());
+    }
 
-    public boolean getIsAvailableByProximity() { return isAvailableByProximity; }
+    /**
+     * Returns the connected devices RemoteSystem, or null for cached and simulated devices.
+     */
+    public RemoteSystem getSystem() {
+        return getRemote() instanceof RemoteSystemDevice ? ((RemoteSystemDevice) getRemote()).getSystem() : null;
+    }
 
     @SuppressWarnings("unused")
     public static final Parcelable.Creator<Device> CREATOR = new Parcelable.Creator<Device>() {
         @Override
         public Device createFromParcel(Parcel in) {
-            return new Device(in);
+            return fromParcel(in);
         }
 
         @Override
@@ -7,6 +7,7 @@ package com.microsoft.romanapp;
 import android.app.Activity;
 import android.content.Intent;
 import android.os.Bundle;
+import android.support.v7.widget.RecyclerView;
 import android.util.Log;
 import android.view.View;
 import android.widget.AdapterView;
@@ -14,35 +15,42 @@ import android.widget.ArrayAdapter;
 import android.widget.EditText;
 import android.widget.Spinner;
 import android.widget.TextView;
+import android.widget.Toast;
 
-import com.microsoft.connecteddevices.ConnectedDevicesException;
-import com.microsoft.connecteddevices.IRemoteLauncherListener;
-import com.microsoft.connecteddevices.Platform;
-import com.microsoft.connecteddevices.RemoteLaunchUriStatus;
-import com.microsoft.connecteddevices.RemoteLauncher;
-import com.microsoft.connecteddevices.RemoteSystemConnectionRequest;
+import com.microsoft.romanapp.core.BackendException;
+import com.microsoft.romanapp.core.CircuitBreaker;
+import com.microsoft.romanapp.core.DedupingLaunchBackend;
+import com.microsoft.romanapp.core.LaunchAttemptListener;
+import com.microsoft.romanapp.core.LaunchCallback;
+import com.microsoft.romanapp.core.LaunchStatus;
+import com.microsoft.romanapp.core.RemoteDevice;
 
 import static com.microsoft.romanapp.DeviceRecyclerActivity.DEVICE_KEY;
-import static com.microsoft.connecteddevices.RemoteLaunchUriStatus.SUCCESS;
+import static com.microsoft.romanapp.core.LaunchStatus.SUCCESS;
 
 public class DeviceActivity extends Activity implements AdapterView.OnItemSelectedListener {
     private static final String TAG = DeviceActivity.class.getName();
     private Device device;
-    private TextView mLaunchLogTv;
+    private LogRecyclerAdapter mLaunchLog;
     private EditText mLaunchUriEt;
+    private LaunchAttemptListener mLaunchAttemptListener;
+    private DedupingLaunchBackend.Listener mLaunchDedupListener;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.device_view);
 
-        mLaunchLogTv = (TextView) findViewById(R.id.launch_log);
+        mLaunchLog = new LogRecyclerAdapter((RecyclerView) findViewById(R.id.launch_log),
+                LogRecyclerAdapter.DEFAULT_CAPACITY);
         mLaunchUriEt = (EditText) findViewById(R.id.launch_uri_edit_text);
 
         Intent intent = this.getIntent();
         device = intent.getParcelableExtra(DEVICE_KEY);
         if (device == null) {
+            // missing from the intent, or its RemoteDevice was evicted from DeviceStorage
             Log.e(TAG, "Could not find \"device\" in bundle");
+            Toast.makeText(this, "The device is no longer available", Toast.LENGTH_SHORT).show();
             finish();
             return;
         }
@@ -59,25 +67,74 @@ public class DeviceActivity extends Activity implements AdapterView.OnItemSelect
         uriSpinner.setAdapter(adapter);
         uriSpinner.setOnItemSelectedListener(this);
         uriSpinner.setSelection(0);
-    }
 
-    @Override
-    public void onResume() {
-        super.onResume();
-        Platform.resume();
+        mLaunchAttemptListener = new LaunchAttemptListener() {
+            @Override
+            public void onRetryScheduled(RemoteDevice remote, int attempt, LaunchStatus status, long delayMs) {
+                if (remote.getId().equals(device.getId())) {
+                    logLaunchMessage("Attempt " + attempt + " failed with status " + status
+                            + ", retrying in " + delayMs + " ms");
+                }
+            }
+
+            @Override
+            public void onRejected(RemoteDevice remote, long retryInMs) {
+                if (remote.getId().equals(device.getId())) {
+                    logLaunchMessage("Circuit is open, not launching for another " + retryInMs / 1000 + " s");
+                }
+            }
+
+            @Override
+            public void onCircuitStateChanged(RemoteDevice remote, CircuitBreaker.State state, int failures) {
+                if (!remote.getId().equals(device.getId())) {
+                    return;
+                }
+                if (state == CircuitBreaker.State.CLOSED) {
+                    logLaunchMessage("Circuit closed, the device answered");
+                } else {
+                    logLaunchMessage("Circuit " + state + " after " + failures + " consecutive failures");
+                }
+            }
+        };
+        Backends.addLaunchAttemptListener(mLaunchAttemptListener);
+
+        mLaunchDedupListener = new DedupingLaunchBackend.Listener() {
+            @Override
+            public void onJoined(RemoteDevice remote, String uri, int waiting) {
+                if (remote.getId().equals(device.getId())) {
+                    logLaunchMessage("Already launching " + uri + ", waiting for that launch (" + waiting + " waiting)");
+                }
+            }
+
+            @Override
+            public void onSuppressed(RemoteDevice remote, String uri, long sinceMs) {
+                if (remote.getId().equals(device.getId())) {
+                    logLaunchMessage(uri + " was launched " + sinceMs + " ms ago, not launching again");
+                }
+            }
+        };
+        Backends.addLaunchDedupListener(mLaunchDedupListener);
+
+        // The user is likely to launch on the device they just opened
+        if (device.getRemote() != null && Backends.prewarmer().prewarm(device.getRemote())) {
+            logLaunchMessage("Prewarming the connection to " + device.getName());
+        }
     }
 
     @Override
-    public void onPause() {
-        Platform.suspend();
-        super.onPause();
+    protected void onDestroy() {
+        if (mLaunchAttemptListener != null) {
+            Backends.removeLaunchAttemptListener(mLaunchAttemptListener);
+            Backends.removeLaunchDedupListener(mLaunchDedupListener);
+            Backends.prewarmer().release(device.getId());
+        }
+        super.onDestroy();
     }
 
     public void onLaunchClick(View view) {
-        if (device.getSystem() != null) {
-            // a RemoteSystemConnectionRequest represents the connection to a single device (RemoteSystem object)
-            // the RemoteSystem object 'remoteSystem' has previously been acquired
-            launchUri(new RemoteSystemConnectionRequest(device.getSystem()));
+        if (device.getRemote() != null) {
+            // the remote device has previously been acquired by discovery
+            launchUri(device.getRemote());
         }
     }
 
@@ -90,16 +147,16 @@ public class DeviceActivity extends Activity implements AdapterView.OnItemSelect
         // Another interface callback
     }
 
-    private void launchUri(RemoteSystemConnectionRequest connectionRequest) {
+    private void launchUri(RemoteDevice remote) {
         try {
             // the URI to launch
             String url = mLaunchUriEt.getText().toString();
-            logLaunchMessage("Launching URI: " + url + " on " + connectionRequest.getRemoteSystem().getDisplayName());
-            // get a RemoteLauncher and use it to launch the URI over this connection
-            new RemoteLauncher().LaunchUriAsync(connectionRequest, url,
-                    new IRemoteLauncherListener() {
+            logLaunchMessage("Launching URI: " + url + " on " + remote.getDisplayName());
+            // the SDK backend launches over the device's cached RemoteSystemConnectionRequest and RemoteLauncher
+            Backends.launcher().launchUri(remote, url,
+                    new LaunchCallback() {
                         @Override
-                        public void onCompleted(RemoteLaunchUriStatus status) {
+                        public void onCompleted(LaunchStatus status) {
                             String message;
                             if (status == SUCCESS)
                             {
@@ -112,24 +169,17 @@ public class DeviceActivity extends Activity implements AdapterView.OnItemSelect
                                 Log.e(TAG, message);
                             }
                             logLaunchMessage(message);
+                            logLaunchMessage("Connection pool: " + LauncherPool.getInstance().getStats());
+                            logLaunchMessage("Prewarming: " + Backends.prewarmer().getStats());
                         }
                     });
-        } catch (ConnectedDevicesException e) {
+        } catch (BackendException e) {
+            logLaunchMessage("Launch failed: " + e.getMessage());
             e.printStackTrace();
         }
     }
 
     private void logLaunchMessage(final String message) {
-        DeviceActivity.this.runOnUiThread(new Runnable() {
-            @Override
-            public void run() {
-                if (mLaunchLogTv == null) {
-                    return;
-                }
-                CharSequence prevText = mLaunchLogTv.getText();
-                String newText = prevText + "\n" + message;
-                mLaunchLogTv.setText(newText);
-            }
-        });
+        mLaunchLog.append(message);
     }
 }
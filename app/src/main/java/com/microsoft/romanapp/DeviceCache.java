@@ -0,0 +1,324 @@
+//
+// Copyright (c) Microsoft Corporation. All rights reserved.
+//
+
+package com.microsoft.romanapp;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.microsoft.romanapp.core.DeviceKind;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.CRC32;
+
+/**
+ * On-disk cache of the last known devices, used to show rows before discovery reports them.
+ *
+ * The file is a header (magic, version) followed by an append-only log of put/remove records.
+ * Each record carries its length and a CRC32, so a torn or corrupted tail is dropped on load
+ * and everything before it is kept. The log is compacted when it grows well past the number
+ * of live entries. All file access happens on a single background thread.
+ */
+public class DeviceCache {
+    private static final String TAG = DeviceCache.class.getName();
+
+    private static final int MAGIC = 0x524f4d44; // "ROMD"
+    private static final int VERSION = 1;
+    private static final int MAX_ENTRIES = 500;
+    private static final int MAX_RECORD_BYTES = 64 * 1024;
+
+    private static final byte OP_PUT = 1;
+    private static final byte OP_REMOVE = 2;
+
+    public interface LoadCallback {
+        void onLoaded(List<Device> devices);
+    }
+
+    private static final class Entry {
+        String id;
+        String name;
+        DeviceKind kind;
+        boolean isAvailableByProximity;
+        long lastSeen;
+    }
+
+    private final File file;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    // Only touched on the executor thread
+    private final Map<String, Entry> entries = new LinkedHashMap<>();
+    private DataOutputStream log;
+    private int records = 0;
+
+    public DeviceCache(File file) {
+        this.file = file;
+    }
+
+    /**
+     * Reads the cache in the background and delivers the devices on the main thread.
+     */
+    public void load(final LoadCallback callback) {
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                readFile();
+                final List<Device> devices = new ArrayList<>(entries.size());
+                for (Entry entry : entries.values()) {
+                    devices.add(new Device(entry.id, entry.name, entry.kind,
+                            entry.isAvailableByProximity, entry.lastSeen));
+                }
+                mainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        callback.onLoaded(devices);
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Records the current state of a device. Safe to call from any thread.
+     */
+    public void put(Device device) {
+        final Entry entry = new Entry();
+        entry.id = device.getId();
+        entry.name = device.getName();
+        entry.kind = device.getKind();
+        entry.isAvailableByProximity = device.getIsAvailableByProximity();
+        entry.lastSeen = device.getLastSeen();
+        if (entry.id == null || entry.name == null || entry.kind == null) {
+            return;
+        }
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                entries.remove(entry.id);
+                entries.put(entry.id, entry);
+                append(OP_PUT, entry);
+            }
+        });
+    }
+
+    /**
+     * Forgets a device. Safe to call from any thread.
+     */
+    public void remove(final String id) {
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                if (entries.remove(id) != null) {
+                    Entry entry = new Entry();
+                    entry.id = id;
+                    append(OP_REMOVE, entry);
+                }
+            }
+        });
+    }
+
+    public void close() {
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                closeLog();
+            }
+        });
+        executor.shutdown();
+    }
+
+    private void readFile() {
+        entries.clear();
+        records = 0;
+        DataInputStream in;
+        try {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+        } catch (FileNotFoundException e) {
+            return;
+        }
+        try {
+            // a file in another format is replaced by an empty one, appending to it would never load
+            boolean known = in.readInt() == MAGIC && in.readInt() == VERSION;
+            if (!known) {
+                Log.w(TAG, "Discarding device cache with unknown format");
+            }
+            while (known) {
+                int length = in.readInt();
+                if (length <= 0 || length > MAX_RECORD_BYTES) {
+                    Log.w(TAG, "Device cache record has invalid length, dropping the rest");
+                    break;
+                }
+                byte[] payload = new byte[length];
+                in.readFully(payload);
+                int crc = in.readInt();
+                if (crc != checksum(payload)) {
+                    Log.w(TAG, "Device cache record is corrupted, dropping the rest");
+                    break;
+                }
+                applyRecord(payload);
+                records++;
+            }
+        } catch (EOFException e) {
+            // end of the log, possibly in the middle of a torn record
+        } catch (IOException | IllegalArgumentException e) {
+            Log.w(TAG, "Could not read device cache, dropping the rest", e);
+        } finally {
+            try {
+                in.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        // Rewrite the file so that it only holds the records that were read correctly
+        compact();
+    }
+
+    private void applyRecord(byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        byte op = in.readByte();
+        String id = in.readUTF();
+        if (op == OP_REMOVE) {
+            entries.remove(id);
+            return;
+        }
+        if (op != OP_PUT) {
+            throw new IOException("Unknown device cache record type " + op);
+        }
+        Entry entry = new Entry();
+        entry.id = id;
+        entry.name = in.readUTF();
+        entry.kind = DeviceKind.valueOf(in.readUTF());
+        entry.isAvailableByProximity = in.readBoolean();
+        entry.lastSeen = in.readLong();
+        entries.remove(id);
+        entries.put(id, entry);
+    }
+
+    private void append(byte op, Entry entry) {
+        if (records > 2 * entries.size() + 64 || entries.size() > MAX_ENTRIES) {
+            compact();
+            return;
+        }
+        try {
+            if (log == null) {
+                boolean isNew = !file.exists() || file.length() == 0;
+                log = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, true)));
+                if (isNew) {
+                    writeHeader(log);
+                }
+            }
+            writeRecord(log, op, entry);
+            log.flush();
+            records++;
+        } catch (IOException e) {
+            Log.e(TAG, "Could not append to device cache", e);
+            closeLog();
+        }
+    }
+
+    // Writes the live entries to a temporary file and swaps it in, keeping the most recently seen ones
+    private void compact() {
+        closeLog();
+        List<Entry> live = new ArrayList<>(entries.values());
+        if (live.size() > MAX_ENTRIES) {
+            Collections.sort(live, new Comparator<Entry>() {
+                @Override
+                public int compare(Entry e1, Entry e2) {
+                    return e1.lastSeen < e2.lastSeen ? 1 : (e1.lastSeen == e2.lastSeen ? 0 : -1);
+                }
+            });
+            for (Entry stale : live.subList(MAX_ENTRIES, live.size())) {
+                entries.remove(stale.id);
+            }
+            live = live.subList(0, MAX_ENTRIES);
+        }
+        File tmp = new File(file.getPath() + ".tmp");
+        DataOutputStream out = null;
+        try {
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)));
+            writeHeader(out);
+            for (Entry entry : live) {
+                writeRecord(out, OP_PUT, entry);
+            }
+            out.close();
+            out = null;
+            if (!tmp.renameTo(file)) {
+                throw new IOException("Could not replace " + file);
+            }
+            records = live.size();
+        } catch (IOException e) {
+            Log.e(TAG, "Could not compact device cache", e);
+            tmp.delete();
+        } finally {
+            if (out != null) {
+                try {
+                    out.close();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    private void closeLog() {
+        if (log == null) {
+            return;
+        }
+        try {
+            log.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        log = null;
+    }
+
+    private static void writeHeader(DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+    }
+
+    private static void writeRecord(DataOutputStream out, byte op, Entry entry) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        DataOutputStream record = new DataOutputStream(bytes);
+        record.writeByte(op);
+        record.writeUTF(entry.id);
+        if (op == OP_PUT) {
+            record.writeUTF(entry.name);
+            record.writeUTF(entry.kind.name());
+            record.writeBoolean(entry.isAvailableByProximity);
+            record.writeLong(entry.lastSeen);
+        }
+        record.flush();
+        byte[] payload = bytes.toByteArray();
+        out.writeInt(payload.length);
+        out.write(payload);
+        out.writeInt(checksum(payload));
+    }
+
+    private static int checksum(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload, 0, payload.length);
+        return (int) crc.getValue();
+    }
+}
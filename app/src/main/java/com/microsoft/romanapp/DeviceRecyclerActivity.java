@@ -9,37 +9,44 @@ import android.os.Bundle;
 import android.support.v7.app.AppCompatActivity;
 import android.support.v7.widget.LinearLayoutManager;
 import android.support.v7.widget.RecyclerView;
+import android.text.Editable;
+import android.text.TextWatcher;
 import android.util.Log;
 import android.view.View;
 import android.widget.AdapterView;
 import android.widget.ArrayAdapter;
+import android.widget.CheckBox;
+import android.widget.EditText;
 import android.widget.Spinner;
+import android.widget.Toast;
+
+import com.microsoft.romanapp.core.DeviceFacets;
+import com.microsoft.romanapp.core.DeviceQuery;
+import com.microsoft.romanapp.core.DeviceRegistry;
+import com.microsoft.romanapp.core.DiscoveryType;
+import com.microsoft.romanapp.core.StatusType;
+import com.microsoft.romanapp.core.SystemKind;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
-import java.util.Comparator;
 import java.util.List;
 
-import com.microsoft.connecteddevices.ConnectedDevicesException;
-import com.microsoft.connecteddevices.IRemoteSystemDiscoveryListener;
-import com.microsoft.connecteddevices.Platform;
-import com.microsoft.connecteddevices.RemoteSystem;
-import com.microsoft.connecteddevices.RemoteSystemDiscovery;
-import com.microsoft.connecteddevices.RemoteSystemDiscoveryType;
-import com.microsoft.connecteddevices.RemoteSystemDiscoveryTypeFilter;
-import com.microsoft.connecteddevices.RemoteSystemKind;
-import com.microsoft.connecteddevices.RemoteSystemKindFilter;
-import com.microsoft.connecteddevices.RemoteSystemStatusType;
-
 public class DeviceRecyclerActivity extends AppCompatActivity {
     private static final String TAG = DeviceRecyclerActivity.class.getName();
 
     private DeviceRecyclerAdapter mDeviceRecyclerAdapter;
-    private List<Device> mDevices;
+    private DeviceRegistry.Callback mDevicesObserver;
     private RecyclerView mRecyclerView;
-    private RemoteSystemDiscovery mDiscovery = null;
-    private RemoteSystemDiscovery.Builder mDiscoveryBuilder;
+    private DiscoverySession mSession;
+    private DiscoverySession.CountsObserver mCountsObserver;
+
+    // Spinner options as in the resources, the adapters show them with a device count
+    private String[] mDiscoveryTypeOptions;
+    private String[] mSystemKindOptions;
+    private String[] mStatusOptions;
+    private ArrayAdapter<String> mDiscoveryTypeAdapter;
+    private ArrayAdapter<String> mSystemKindAdapter;
+    private ArrayAdapter<String> mStatusAdapter;
 
     public static final String DEVICE_KEY = "device_key";
 
@@ -49,6 +56,10 @@ public class DeviceRecyclerActivity extends AppCompatActivity {
     // Discover all types of systems (Holographic, Desktops, Phones and etc)
     private SystemKind mSystemKind = SystemKind.ALL;
     // for multiple specific types/kinds use List
+    // Show devices whatever their availability
+    private StatusType mStatus = StatusType.ANY;
+    // Text typed in the search box, matched against the device names
+    private String mNameQuery = "";
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -57,105 +68,118 @@ public class DeviceRecyclerActivity extends AppCompatActivity {
         setContentView(R.layout.device_recycler);
 
         createFilterSpinners();
+        createSearchBox();
+        ((CheckBox) findViewById(R.id.prewarm_checkbox)).setChecked(Backends.isPrewarmEnabled());
 
         mRecyclerView = (RecyclerView) findViewById(R.id.device_recycler);
         mRecyclerView.setLayoutManager(new LinearLayoutManager(this));
         mRecyclerView.setHasFixedSize(true);
 
-        initializeData();
+        // The session outlives this activity, so a recreated activity picks up
+        // the running discovery and the devices it already found
+        mSession = DiscoverySession.getInstance(this);
+        initializeAdapter();
+        mSession.attach(mDevicesObserver);
+        mCountsObserver = new DiscoverySession.CountsObserver() {
+            @Override
+            public void onCountsChanged(DeviceFacets.Counts counts) {
+                showCounts(counts);
+            }
+        };
+        mSession.addCountsObserver(mCountsObserver);
+        mSession.start();
+        StartupTrace.mark(StartupTrace.DEVICE_LIST_CREATED);
+    }
+
+    @Override
+    protected void onDestroy() {
+        mSession.detach(mDevicesObserver);
+        mSession.removeCountsObserver(mCountsObserver);
+        super.onDestroy();
     }
 
     private void createFilterSpinners() {
         // Create Discovery Type filter spinner
-        Spinner discoveryTypeSpinner = (Spinner) findViewById(R.id.discovery_type_filter_spinner);
-        ArrayAdapter<CharSequence> discoveryTypeAdapter = ArrayAdapter.createFromResource(this, R.array.discovery_type_filter_array, android.R.layout.simple_spinner_item);
-        discoveryTypeAdapter.setDropDownViewResource(android.R.layout.simple_spinner_dropdown_item);
-        discoveryTypeSpinner.setAdapter(discoveryTypeAdapter);
-        discoveryTypeSpinner.setOnItemSelectedListener(new DiscoveryTypeFilter());
-        discoveryTypeSpinner.setSelection(0);
+        mDiscoveryTypeOptions = getResources().getStringArray(R.array.discovery_type_filter_array);
+        mDiscoveryTypeAdapter = createFilterSpinner(R.id.discovery_type_filter_spinner, mDiscoveryTypeOptions,
+                new DiscoveryTypeFilter());
 
         // Create System Kind filter spinner
-        Spinner systemKindSpinner = (Spinner) findViewById(R.id.system_kind_filter_spinner);
-        ArrayAdapter<CharSequence> systemKindAdapter = ArrayAdapter.createFromResource(this, R.array.system_kind_filter_array, android.R.layout.simple_spinner_item);
-        systemKindAdapter .setDropDownViewResource(android.R.layout.simple_spinner_dropdown_item);
-        systemKindSpinner.setAdapter(systemKindAdapter );
-        systemKindSpinner.setOnItemSelectedListener(new SystemKindFilter());
-        systemKindSpinner.setSelection(0);
-    }
-
-    private enum DiscoveryType {
-        ALL("All"),
-        CLOUD("Cloud"),
-        PROXIMAL("Proximal");
+        mSystemKindOptions = getResources().getStringArray(R.array.system_kind_filter_array);
+        mSystemKindAdapter = createFilterSpinner(R.id.system_kind_filter_spinner, mSystemKindOptions,
+                new SystemKindFilter());
 
-        private final String value;
+        // Create Status filter spinner
+        mStatusOptions = getResources().getStringArray(R.array.status_filter_array);
+        mStatusAdapter = createFilterSpinner(R.id.status_filter_spinner, mStatusOptions, new StatusFilter());
+    }
 
-        DiscoveryType(String value) { this.value = value; }
+    private ArrayAdapter<String> createFilterSpinner(int spinnerId, String[] options,
+                                                     AdapterView.OnItemSelectedListener listener) {
+        Spinner spinner = (Spinner) findViewById(spinnerId);
+        ArrayAdapter<String> adapter = new ArrayAdapter<>(this, android.R.layout.simple_spinner_item,
+                new ArrayList<>(Arrays.asList(options)));
+        adapter.setDropDownViewResource(android.R.layout.simple_spinner_dropdown_item);
+        spinner.setAdapter(adapter);
+        spinner.setOnItemSelectedListener(listener);
+        spinner.setSelection(0);
+        return adapter;
+    }
 
-        static DiscoveryType fromString(String value) {
-            switch (value) {
-                case "All"         : return ALL;
-                case "Cloud"       : return CLOUD;
-                case "Proximal"    : return PROXIMAL;
-            }
-            return ALL;
+    // Appends to every spinner option the number of devices it would show
+    private void showCounts(DeviceFacets.Counts counts) {
+        List<String> labels = new ArrayList<>(mDiscoveryTypeOptions.length);
+        for (String option : mDiscoveryTypeOptions) {
+            labels.add(option + " (" + counts.get(DiscoveryType.fromString(option)) + ")");
         }
+        setLabels(mDiscoveryTypeAdapter, labels);
 
-        public String getValue() {
-            return value;
+        labels = new ArrayList<>(mSystemKindOptions.length);
+        for (String option : mSystemKindOptions) {
+            labels.add(option + " (" + counts.get(SystemKind.fromString(option)) + ")");
         }
-    }
+        setLabels(mSystemKindAdapter, labels);
 
-    private enum SystemKind {
-        ALL("All"),
-        UNKNOWN("Unknown"),
-        DESKTOP("Desktop"),
-        HOLOGRAPHIC("Holographic"),
-        PHONE("Phone"),
-        XBOX("Xbox");
-
-        private final String value;
-
-        SystemKind(String value) { this.value = value; }
-
-        static SystemKind fromString(String value) {
-            switch (value) {
-                case "All"         : return ALL;
-                case "Desktop"     : return DESKTOP;
-                case "Holographic" : return HOLOGRAPHIC;
-                case "Phone"       : return PHONE;
-                case "Xbox"        : return XBOX;
-            }
-            return UNKNOWN;
-        }
-
-        public String getValue() {
-            return value;
+        labels = new ArrayList<>(mStatusOptions.length);
+        for (String option : mStatusOptions) {
+            labels.add(option + " (" + counts.get(StatusType.fromString(option)) + ")");
         }
+        setLabels(mStatusAdapter, labels);
     }
 
-    private enum StatusType{
-        ANY("Any"),
-        AVAILABLE("Available");
+    private static void setLabels(ArrayAdapter<String> adapter, List<String> labels) {
+        adapter.setNotifyOnChange(false);
+        adapter.clear();
+        adapter.addAll(labels);
+        adapter.notifyDataSetChanged();
+    }
 
-        private final String value;
+    private void createSearchBox() {
+        EditText searchBox = (EditText) findViewById(R.id.device_search);
+        searchBox.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+            }
 
-        StatusType(String value){
-            this.value=value;
-        }
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {
+            }
 
-        public String getValue(){
-            return value;
-        }
+            @Override
+            public void afterTextChanged(Editable s) {
+                mNameQuery = s.toString();
+                applyFilter();
+            }
+        });
     }
 
     private class DiscoveryTypeFilter implements AdapterView.OnItemSelectedListener {
 
         @Override
         public void onItemSelected(AdapterView<?> parent, View view, int pos, long id) {
-            String filterType = (String) parent.getItemAtPosition(pos);
-            mDiscoveryType = DiscoveryType.fromString(filterType);
-            initializeData();
+            // the item is labeled with a count, the option keeps the plain name
+            mDiscoveryType = DiscoveryType.fromString(mDiscoveryTypeOptions[pos]);
+            applyFilter();
         }
 
         @Override
@@ -168,9 +192,8 @@ public class DeviceRecyclerActivity extends AppCompatActivity {
 
         @Override
         public void onItemSelected(AdapterView<?> parent, View view, int pos, long id) {
-            String filterType = (String) parent.getItemAtPosition(pos);
-            mSystemKind = SystemKind.fromString(filterType);
-            initializeData();
+            mSystemKind = SystemKind.fromString(mSystemKindOptions[pos]);
+            applyFilter();
         }
 
         @Override
@@ -179,149 +202,92 @@ public class DeviceRecyclerActivity extends AppCompatActivity {
         }
     }
 
-    @Override
-    public void onResume() {
-        super.onResume();
-        Platform.resume();
-    }
+    private class StatusFilter implements AdapterView.OnItemSelectedListener {
 
-    @Override
-    public void onPause() {
-        Platform.suspend();
-        super.onPause();
+        @Override
+        public void onItemSelected(AdapterView<?> parent, View view, int pos, long id) {
+            mStatus = StatusType.fromString(mStatusOptions[pos]);
+            applyFilter();
+        }
+
+        @Override
+        public void onNothingSelected(AdapterView<?> parent) {
+
+        }
     }
 
     public void onDiscoverClicked(View view) {
-        initializeData();
+        mSession.restart();
     }
 
-    private void initializeData(){
-        initializeAdapter();
-        mDiscoveryBuilder = new RemoteSystemDiscovery.Builder().setListener(new IRemoteSystemDiscoveryListener() {
-            @Override
-            public void onRemoteSystemAdded(RemoteSystem remoteSystem) {
-                Log.d(TAG, "RemoteSystemAdded = " + remoteSystem.getDisplayName());
-
-                mDevices.add(new Device(remoteSystem));
-                // Sort devices in alphabetic order
-                Collections.sort(mDevices, new Comparator<Device>() {
-                    @Override
-                    public int compare(Device d1, Device d2)
-                    {
-                        return d1.getName().compareTo(d2.getName());
-                    }
-                });
-
-                // Update the RecyclerView
-                runOnUiThread(new Runnable() {
-                    @Override
-                    public void run() {
-                        mDeviceRecyclerAdapter.notifyDataSetChanged();
-                    }
-                });
-            }
+    public void onBatchLaunchClicked(View view) {
+        startActivity(new Intent(this, BatchLaunchActivity.class));
+    }
 
-            @Override
-            public void onRemoteSystemUpdated(RemoteSystem remoteSystem) {
-                Log.d(TAG, "RemoteSystemUpdated = " + remoteSystem.getDisplayName());
-            }
+    public void onPrewarmClicked(View view) {
+        Backends.setPrewarmEnabled(((CheckBox) view).isChecked());
+    }
 
-            @Override
-            public void onRemoteSystemRemoved(String remoteSystemId) {
-                Log.d(TAG, "RemoteSystemRemoved = id:" + remoteSystemId);
-            }
-        })
-                .filter(generateDiscoveryTypeFilter())  // add Discovery type filter
-                .filter(generateSystemKindFilter());    // add device kind filter
+    public void onMetricsClicked(View view) {
+        startActivity(new Intent(this, MetricsActivity.class));
+    }
 
-        startDiscovery();
+    private DeviceQuery generateDeviceFilter() {
+        return new DeviceQuery(mDiscoveryType, mSystemKind, mStatus, mNameQuery);
     }
 
-    private RemoteSystemDiscoveryTypeFilter generateDiscoveryTypeFilter() {
-        RemoteSystemDiscoveryType kind = RemoteSystemDiscoveryType.ANY;
-
-        switch (mDiscoveryType) {
-            case CLOUD:
-                kind = RemoteSystemDiscoveryType.CLOUD;
-                break;
-            case PROXIMAL:
-                kind = RemoteSystemDiscoveryType.PROXIMAL;
-                break;
-            case ALL:
-                kind = RemoteSystemDiscoveryType.ANY;
-                break;
+    private void applyFilter() {
+        if (mSession != null) {
+            mSession.setFilter(generateDeviceFilter());
         }
-        return new RemoteSystemDiscoveryTypeFilter(kind);
     }
 
-    private RemoteSystemKindFilter generateSystemKindFilter() {
-        ArrayList<RemoteSystemKind> kinds = new ArrayList<>(Arrays.asList(RemoteSystemKind.UNKNOWN));
-
-        switch (mSystemKind) {
-            case ALL:
-                kinds = new ArrayList<>(Arrays.asList(RemoteSystemKind.UNKNOWN,
-                        RemoteSystemKind.DESKTOP,
-                        RemoteSystemKind.HOLOGRAPHIC,
-                        RemoteSystemKind.PHONE,
-                        RemoteSystemKind.XBOX));
-                break;
-            case UNKNOWN:
-                kinds = new ArrayList<>(Arrays.asList(RemoteSystemKind.UNKNOWN));
-                break;
-            case DESKTOP:
-                kinds = new ArrayList<>(Arrays.asList(RemoteSystemKind.DESKTOP));
-                break;
-            case HOLOGRAPHIC:
-                kinds = new ArrayList<>(Arrays.asList(RemoteSystemKind.HOLOGRAPHIC));
-                break;
-            case PHONE:
-                kinds = new ArrayList<>(Arrays.asList(RemoteSystemKind.PHONE));
-                break;
-            case XBOX:
-                kinds = new ArrayList<>(Arrays.asList(RemoteSystemKind.XBOX));
-                break;
-        }
+    private void initializeAdapter(){
+        mDeviceRecyclerAdapter = new DeviceRecyclerAdapter(mSession);
+        final DeviceRecyclerAdapter adapter = mDeviceRecyclerAdapter;
+        mDevicesObserver = new DeviceRegistry.Callback() {
+            @Override
+            public void onInserted(int position) {
+                adapter.notifyItemInserted(position);
+            }
 
-        return new RemoteSystemKindFilter(kinds);
-    }
+            @Override
+            public void onChanged(int position) {
+                adapter.notifyItemChanged(position);
+            }
 
-    private void startDiscovery() {
-        Log.v(TAG, "Starting Discovery");
-        if (mDiscovery != null) {
-            // before starting new discovery, stop ongoing one
-            try {
-                mDiscovery.stop();
-            } catch (ConnectedDevicesException e) {
-                e.printStackTrace();
+            @Override
+            public void onRemoved(int position) {
+                adapter.notifyItemRemoved(position);
             }
-        }
-        mDiscovery = createDiscovery();
-        // begin watching for remote devices
-        try {
-            Log.d(TAG, "Starting device discovery");
-//            mDiscovery.findByHostName("Fukken-Uber-PC");
-            mDiscovery.start();
-        } catch (ConnectedDevicesException e) {
-            Log.d(TAG, "Could not start device discovery: " + e.getMessage());
-            e.printStackTrace();
-        }
-    }
 
-    private RemoteSystemDiscovery createDiscovery() {
-        return mDiscoveryBuilder.getResult();
-    }
+            @Override
+            public void onReset() {
+                adapter.notifyDataSetChanged();
+            }
 
-    private void initializeAdapter(){
-        mDevices = new ArrayList<>();
-        mDeviceRecyclerAdapter = new DeviceRecyclerAdapter(mDevices);
+            @Override
+            public void onMoved(int fromPosition, int toPosition) {
+                adapter.notifyItemMoved(fromPosition, toPosition);
+            }
+        };
         mRecyclerView.setAdapter(mDeviceRecyclerAdapter);
         mRecyclerView.invalidate();
 
         mDeviceRecyclerAdapter.setOnItemClickListener(new DeviceRecyclerAdapter.ClickListener() {
             @Override
             public void onItemClick(int position, View v) {
+                if (position == RecyclerView.NO_POSITION) {
+                    // the row was removed before the click was delivered
+                    return;
+                }
                 // our parcelable wrapper for RemoteDevice
-                Device selectedDevice = mDevices.get(position);
+                Device selectedDevice = mSession.getSnapshot().get(position);
+                if (selectedDevice.isCached()) {
+                    Toast.makeText(v.getContext(), selectedDevice.getName() + " has not been discovered yet",
+                            Toast.LENGTH_SHORT).show();
+                    return;
+                }
                 Intent intent = new Intent(v.getContext(), DeviceActivity.class);
                 intent.putExtra(DEVICE_KEY, selectedDevice);
                 startActivity(intent);
@@ -11,14 +11,15 @@ import android.view.View;
 import android.view.ViewGroup;
 import android.widget.TextView;
 
-import java.util.List;
 
 public class DeviceRecyclerAdapter extends RecyclerView.Adapter<DeviceRecyclerAdapter.DeviceViewHolder> {
 
     private static final String TAG = DeviceRecyclerAdapter.class.getName();
+    private static final float STALE_ALPHA = 0.5f;
 
     private static ClickListener clickListener;
-    List<Device> devices;
+    // The rows are read from the session's latest snapshot
+    private final DiscoverySession session;
 
     public static class DeviceViewHolder extends RecyclerView.ViewHolder
             implements View.OnClickListener {
@@ -27,6 +28,10 @@ public class DeviceRecyclerAdapter extends RecyclerView.Adapter<DeviceRecyclerAd
         TextView deviceName;
         TextView deviceType;
         TextView deviceTransports;
+        // The text currently shown, so rebinding an unchanged device does not touch the views
+        String boundName;
+        String boundType;
+        String boundTransports;
 
         DeviceViewHolder(View itemView) {
             super(itemView);
@@ -50,8 +55,10 @@ public class DeviceRecyclerAdapter extends RecyclerView.Adapter<DeviceRecyclerAd
         void onItemClick(int position, View v);
     }
 
-    DeviceRecyclerAdapter(List<Device> devices) {
-        this.devices = devices;
+    DeviceRecyclerAdapter(DiscoverySession session) {
+        this.session = session;
+        // A full refresh then rebinds rows in place instead of re-creating and re-animating every card
+        setHasStableIds(true);
     }
 
     public void setOnItemClickListener(ClickListener clickListener) {
@@ -68,16 +75,34 @@ public class DeviceRecyclerAdapter extends RecyclerView.Adapter<DeviceRecyclerAd
 
     @Override
     public void onBindViewHolder(DeviceViewHolder deviceViewHolder, int i) {
-        deviceViewHolder.deviceName.setText(devices.get(i).getName());
-        deviceViewHolder.deviceType.setText(devices.get(i).getType());
+        Device device = session.getSnapshot().get(i);
+        String name = device.getName();
+        if (name != deviceViewHolder.boundName) {
+            deviceViewHolder.deviceName.setText(name);
+            deviceViewHolder.boundName = name;
+        }
+        String type = device.getTypeLabel();
+        if (type != deviceViewHolder.boundType) {
+            deviceViewHolder.deviceType.setText(type);
+            deviceViewHolder.boundType = type;
+        }
+        // devices that discovery has not reported for a while are faded out
+        deviceViewHolder.itemView.setAlpha(device.isStale() ? STALE_ALPHA : 1f);
+
+        String transports = device.getTransportsLabel();
+        if (transports != deviceViewHolder.boundTransports) {
+            deviceViewHolder.deviceTransports.setText(transports);
+            deviceViewHolder.boundTransports = transports;
+        }
+    }
 
-        String transports = "Cloud";
-        transports += devices.get(i).getIsAvailableByProximity() ? ", Proximal" : "";
-        deviceViewHolder.deviceTransports.setText(transports);
+    @Override
+    public long getItemId(int position) {
+        return session.getSnapshot().get(position).getStableId();
     }
 
     @Override
     public int getItemCount() {
-        return devices.size();
+        return session.getSnapshot().size();
     }
 }
@@ -4,29 +4,53 @@
 
 package com.microsoft.romanapp;
 
-import com.microsoft.connecteddevices.RemoteSystem;
+import android.os.SystemClock;
+
+import com.microsoft.romanapp.core.Clock;
+import com.microsoft.romanapp.core.HandleStore;
+import com.microsoft.romanapp.core.RemoteDevice;
 
-import java.util.HashMap;
-import java.util.Map;
 import java.util.NoSuchElementException;
 
+/**
+ * Holds the RemoteDevice behind each parcelled Device, since RemoteSystem is not parcelable.
+ * See HandleStore for the reference counting and eviction rules. All methods are thread safe.
+ */
 public final class DeviceStorage {
-    private static final Map<String, RemoteSystem> map = new HashMap<>();
+    private static final int MAX_ENTRIES = 256;
+    private static final long TTL_MS = 10 * 60 * 1000;
 
-    public static void addDevice(String id, RemoteSystem system) throws RuntimeException {
-        if (!map.containsKey(id) && system != null) {
-            map.put(id, system);
-        } else {
-            throw new RuntimeException();
+    private static final HandleStore<RemoteDevice> store = new HandleStore<>(MAX_ENTRIES, TTL_MS, new Clock() {
+        @Override
+        public long now() {
+            return SystemClock.elapsedRealtime();
         }
+    });
+
+    private DeviceStorage() {
     }
 
-    public static RemoteSystem getDevice(String id) throws NoSuchElementException {
-        if (map.containsKey(id)) {
-            RemoteSystem device = map.get(id);
-            map.remove(id);
-            return device;
-        }
-        throw new NoSuchElementException();
+    public static void addDevice(String id, RemoteDevice device) {
+        store.put(id, device);
+    }
+
+    public static RemoteDevice getDevice(String id) throws NoSuchElementException {
+        return store.get(id);
+    }
+
+    public static int size() {
+        return store.size();
+    }
+
+    public static long getHits() {
+        return store.getHits();
+    }
+
+    public static long getMisses() {
+        return store.getMisses();
+    }
+
+    public static long getEvictions() {
+        return store.getEvictions();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,536 @@
+//
+// Copyright (c) Microsoft Corporation. All rights reserved.
+//
+
+package com.microsoft.romanapp;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.microsoft.romanapp.core.BackendException;
+import com.microsoft.romanapp.core.Clock;
+import com.microsoft.romanapp.core.DeviceChanges;
+import com.microsoft.romanapp.core.DeviceFacets;
+import com.microsoft.romanapp.core.DeviceNameIndex;
+import com.microsoft.romanapp.core.DeviceQuery;
+import com.microsoft.romanapp.core.DeviceRegistry;
+import com.microsoft.romanapp.core.DeviceSnapshot;
+import com.microsoft.romanapp.core.DiscoveryBackend;
+import com.microsoft.romanapp.core.DiscoveryListener;
+import com.microsoft.romanapp.core.DiscoveryScheduler;
+import com.microsoft.romanapp.core.DiscoveryType;
+import com.microsoft.romanapp.core.PresenceTracker;
+import com.microsoft.romanapp.core.RemoteDevice;
+import com.microsoft.romanapp.core.StatusType;
+import com.microsoft.romanapp.core.SystemKind;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * App-wide owner of the one running discovery and the devices it found.
+ *
+ * Activities attach as observers instead of running their own discovery,
+ * so rotating the screen or coming back from another activity keeps every result.
+ *
+ * The device registry and the name index belong to a single worker thread: discovery events,
+ * filter changes and cache loads are all applied there. At most once per frame the worker
+ * publishes an immutable snapshot of the rows together with the row changes since the previous
+ * one, and the main thread swaps it in and notifies the observers. The main thread only reads
+ * snapshots, so it never waits for the worker and never sees a half-applied burst.
+ *
+ * Discovery does not run for good: a DiscoveryScheduler stops it once the results settle
+ * and starts it again after a pause that grows while nothing changes. While the platform is
+ * suspended in the background neither discovery nor its schedule nor the presence sweep run,
+ * discovery is started again when the app comes back if it was running before.
+ */
+public class DiscoverySession {
+    private static final String TAG = DiscoverySession.class.getName();
+
+    /**
+     * Told on the main thread when the number of devices behind a filter option changes.
+     */
+    public interface CountsObserver {
+        void onCountsChanged(DeviceFacets.Counts counts);
+    }
+
+    private static final long PUBLISH_INTERVAL_MS = 16;
+    // Devices among the most launched ones are prewarmed as soon as they are discovered
+    private static final int PREWARM_TOP_DEVICES = 3;
+    // A device that discovery has not reported for 5 min is shown as stale,
+    // after another 10 min it is removed as if discovery had reported it gone
+    private static final long STALE_AFTER_MS = 5 * 60 * 1000;
+    private static final long EXPIRE_AFTER_MS = 10 * 60 * 1000;
+    private static final long SWEEP_INTERVAL_MS = 1000;
+    // A scan stops after 10 s without events and resumes after 15 s to 2 min, so every device
+    // is reported again well before it would turn stale
+    private static final long QUIET_MS = 10 * 1000;
+    private static final long MIN_PAUSE_MS = 15 * 1000;
+    private static final long MAX_PAUSE_MS = 2 * 60 * 1000;
+
+    private static DiscoverySession sInstance;
+
+    private final DeviceCache mDeviceCache;
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+    private final Handler mWorker;
+
+    // Only touched on the worker thread
+    private final DeviceRegistry<Device> mDevices = new DeviceRegistry<>();
+    // Every known device by name, for the search box
+    private final DeviceNameIndex mNameIndex = new DeviceNameIndex();
+    // Row changes since the last published snapshot
+    private DeviceChanges mChanges = new DeviceChanges();
+    private boolean mPublishScheduled = false;
+    private long mPublishedVersion = 0;
+    private DeviceQuery mQuery = new DeviceQuery(DiscoveryType.ALL, SystemKind.ALL, StatusType.ANY, "");
+    // When each discovered device was last reported
+    private final PresenceTracker mPresence = new PresenceTracker(STALE_AFTER_MS, EXPIRE_AFTER_MS,
+            SWEEP_INTERVAL_MS, new Clock() {
+                @Override
+                public long now() {
+                    return SystemClock.elapsedRealtime();
+                }
+            });
+    private boolean mSweepScheduled = false;
+    // Incremented whenever the devices are forgotten
+    private int mResets = 0;
+
+    // Only touched on the main thread
+    private final List<DeviceRegistry.Callback> mObservers = new ArrayList<>();
+    private DeviceSnapshot<Device> mSnapshot = DeviceSnapshot.empty();
+    private final List<CountsObserver> mCountsObservers = new ArrayList<>();
+    private DeviceFacets.Counts mCounts = DeviceFacets.Counts.EMPTY;
+    private DiscoveryBackend mDiscovery = null;
+    private long mScanStartMs;
+    // Whether discovery was running or paused by the scheduler when the platform was suspended
+    private boolean mResumeOnForeground = false;
+    private final DiscoveryScheduler mScheduler = new DiscoveryScheduler.Builder()
+            .setQuietMs(QUIET_MS)
+            .setPause(MIN_PAUSE_MS, MAX_PAUSE_MS)
+            .setClock(new Clock() {
+                @Override
+                public long now() {
+                    return SystemClock.elapsedRealtime();
+                }
+            })
+            .getResult();
+
+    // Incremented for every new discovery, so late events of a stopped one are dropped
+    private volatile int mGeneration = 0;
+
+    public static synchronized DiscoverySession getInstance(Context context) {
+        if (sInstance == null) {
+            sInstance = new DiscoverySession(context.getApplicationContext());
+        }
+        return sInstance;
+    }
+
+    private DiscoverySession(Context context) {
+        mDeviceCache = new DeviceCache(new File(context.getFilesDir(), "device_cache.bin"));
+        HandlerThread worker = new HandlerThread("DiscoveryWorker", Process.THREAD_PRIORITY_BACKGROUND);
+        worker.start();
+        mWorker = new Handler(worker.getLooper());
+        mDevices.setCallback(mChanges);
+        loadCachedDevices();
+        PlatformLifecycle.addListener(new PlatformLifecycle.Listener() {
+            @Override
+            public void onPlatformSuspended() {
+                suspend();
+            }
+
+            @Override
+            public void onPlatformResumed() {
+                resume();
+            }
+        });
+    }
+
+    /**
+     * Returns the rows as of the last notification to the observers. Main thread only.
+     */
+    public DeviceSnapshot<Device> getSnapshot() {
+        return mSnapshot;
+    }
+
+    public void attach(DeviceRegistry.Callback observer) {
+        mObservers.add(observer);
+        // The observer may have missed any number of changes
+        observer.onReset();
+    }
+
+    public void detach(DeviceRegistry.Callback observer) {
+        mObservers.remove(observer);
+    }
+
+    /**
+     * Returns the filter option counts as of the last notification. Main thread only.
+     */
+    public DeviceFacets.Counts getCounts() {
+        return mCounts;
+    }
+
+    public void addCountsObserver(CountsObserver observer) {
+        mCountsObservers.add(observer);
+        observer.onCountsChanged(mCounts);
+    }
+
+    public void removeCountsObserver(CountsObserver observer) {
+        mCountsObservers.remove(observer);
+    }
+
+    public boolean isDiscovering() {
+        return mDiscovery != null;
+    }
+
+    /**
+     * Human readable state of the discovery schedule, for the metrics screen.
+     */
+    public String getSchedulerStats() {
+        return "state=" + mScheduler.getState() + " scans=" + mScheduler.getScans()
+                + " scanning_ms=" + mScheduler.getScanningMs()
+                + " duty_cycle=" + String.format("%.2f", mScheduler.getDutyCycle())
+                + " pause_ms=" + mScheduler.getPauseMs();
+    }
+
+    /**
+     * Starts discovery unless it is already running, a paused discovery is resumed right away.
+     */
+    public void start() {
+        if (mDiscovery == null) {
+            startDiscovery();
+        }
+    }
+
+    /**
+     * Forgets every device and runs a fresh discovery.
+     */
+    public void restart() {
+        // events of the old discovery that are still queued are dropped,
+        // the ones of the new discovery are queued behind the clear
+        stop();
+        mWorker.post(new Runnable() {
+            @Override
+            public void run() {
+                mResets++;
+                mNameIndex.clear();
+                mPresence.clear();
+                mDevices.clear();
+                schedulePublish();
+            }
+        });
+        startDiscovery();
+    }
+
+    public void stop() {
+        mGeneration++;
+        mMainHandler.removeCallbacks(mScheduleCheck);
+        mScheduler.onStopped();
+        stopScan();
+    }
+
+    // Main thread only, nothing reports devices or needs the schedule while suspended
+    private void suspend() {
+        mResumeOnForeground = mScheduler.getState() != DiscoveryScheduler.State.IDLE;
+        stop();
+        mWorker.post(new Runnable() {
+            @Override
+            public void run() {
+                mWorker.removeCallbacks(mSweep);
+                mSweepScheduled = false;
+            }
+        });
+    }
+
+    private void resume() {
+        if (mResumeOnForeground) {
+            mResumeOnForeground = false;
+            Log.d(TAG, "Back in the foreground, resuming discovery");
+            startDiscovery();
+        }
+        // devices that went unreported in the background age as usual,
+        // discovery adds them again if they are still around
+        mWorker.post(new Runnable() {
+            @Override
+            public void run() {
+                if (!mSweepScheduled && mPresence.size() > 0) {
+                    mSweepScheduled = true;
+                    mWorker.postDelayed(mSweep, SWEEP_INTERVAL_MS);
+                }
+            }
+        });
+    }
+
+    private void stopScan() {
+        if (mDiscovery != null) {
+            mDiscovery.stop();
+            mDiscovery = null;
+            long scanMs = SystemClock.elapsedRealtime() - mScanStartMs;
+            Metrics.histogram(Metrics.DISCOVERY_SCAN_LENGTH).record(scanMs);
+            Metrics.counter(Metrics.DISCOVERY_SCANNING_MS).add(scanMs);
+        }
+    }
+
+    /**
+     * Shows only the devices matching the query, the observers are reset once it is applied.
+     */
+    public void setFilter(final DeviceQuery query) {
+        mWorker.post(new Runnable() {
+            @Override
+            public void run() {
+                mQuery = query;
+                DeviceFacets facets = mDevices.getFacets();
+                if (!query.getNameQuery().equals(facets.getNameQuery())) {
+                    facets.setNameQuery(query.getNameQuery(), query.hasNameQuery()
+                            ? mNameIndex.search(query.getNameQuery()) : Collections.<String>emptySet());
+                }
+                // only the devices selected by the bitmaps need to be checked and sorted
+                mDevices.setFilter(query, facets.select(query));
+                schedulePublish();
+            }
+        });
+    }
+
+    // Show the devices from the last session until discovery reports them again
+    private void loadCachedDevices() {
+        mDeviceCache.load(new DeviceCache.LoadCallback() {
+            @Override
+            public void onLoaded(final List<Device> cached) {
+                mWorker.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (mResets != 0) {
+                            // a fresh scan was started meanwhile
+                            return;
+                        }
+                        for (Device device : cached) {
+                            if (!mDevices.contains(device.getId())) {
+                                mNameIndex.put(device.getId(), device.getName());
+                                mDevices.add(device);
+                            }
+                        }
+                        schedulePublish();
+                    }
+                });
+            }
+        });
+    }
+
+    private void startDiscovery() {
+        stop();
+        mScheduler.onStarted();
+        startScan();
+        scheduleCheck();
+    }
+
+    // Starts a scan without touching the schedule
+    private void startScan() {
+        final int generation = mGeneration;
+        final long startMs = SystemClock.elapsedRealtime();
+        final AtomicBoolean firstDeviceSeen = new AtomicBoolean(false);
+        DiscoveryBackend discovery = Backends.discovery();
+        try {
+            discovery.start(new DiscoveryListener() {
+                @Override
+                public void onDeviceAdded(RemoteDevice remoteDevice) {
+                    Metrics.rate(Metrics.DISCOVERY_EVENTS).mark();
+                    if (firstDeviceSeen.compareAndSet(false, true)) {
+                        Metrics.histogram(Metrics.DISCOVERY_TIME_TO_FIRST_DEVICE)
+                                .record(SystemClock.elapsedRealtime() - startMs);
+                    }
+
+                    Backends.prewarmer().prewarmIfFrequent(remoteDevice, PREWARM_TOP_DEVICES);
+
+                    final Device device = new Device(remoteDevice);
+                    postDiscoveryEvent(generation, new Runnable() {
+                        @Override
+                        public void run() {
+                            Device known = mDevices.getById(device.getId());
+                            mScheduler.onEvent(known == null || known.isCached() || known.isStale());
+                            mDevices.add(device);
+                            mNameIndex.put(device.getId(), device.getName());
+                            mDeviceCache.put(mDevices.getById(device.getId()));
+                            touch(device.getId());
+                        }
+                    });
+                }
+
+                @Override
+                public void onDeviceUpdated(RemoteDevice remoteDevice) {
+                    Metrics.rate(Metrics.DISCOVERY_EVENTS).mark();
+
+                    final Device device = new Device(remoteDevice);
+                    postDiscoveryEvent(generation, new Runnable() {
+                        @Override
+                        public void run() {
+                            mScheduler.onEvent(true);
+                            mDevices.update(device);
+                            mNameIndex.put(device.getId(), device.getName());
+                            mDeviceCache.put(mDevices.getById(device.getId()));
+                            touch(device.getId());
+                        }
+                    });
+                }
+
+                @Override
+                public void onDeviceRemoved(final String id) {
+                    Metrics.rate(Metrics.DISCOVERY_EVENTS).mark();
+
+                    postDiscoveryEvent(generation, new Runnable() {
+                        @Override
+                        public void run() {
+                            mScheduler.onEvent(mDevices.contains(id));
+                            removeDevice(id);
+                        }
+                    });
+                }
+            });
+            mDiscovery = discovery;
+            mScanStartMs = startMs;
+            Metrics.counter(Metrics.DISCOVERY_SCANS).increment();
+        } catch (BackendException e) {
+            Log.d(TAG, "Could not start device discovery: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    // Main thread only, wakes up when the scheduler may want to stop or resume discovery
+    private void scheduleCheck() {
+        mMainHandler.removeCallbacks(mScheduleCheck);
+        long delayMs = mScheduler.getDelayMs();
+        if (delayMs >= 0) {
+            mMainHandler.postDelayed(mScheduleCheck, delayMs);
+        }
+    }
+
+    private final Runnable mScheduleCheck = new Runnable() {
+        @Override
+        public void run() {
+            switch (mScheduler.poll()) {
+                case STOP:
+                    // the generation is kept, so the last events of the scan still apply
+                    Log.d(TAG, "Discovery settled, pausing for " + mScheduler.getPauseMs() + " ms");
+                    stopScan();
+                    break;
+                case START:
+                    Log.d(TAG, "Resuming discovery");
+                    mGeneration++;
+                    startScan();
+                    break;
+                default:
+                    break;
+            }
+            scheduleCheck();
+        }
+    };
+
+    // Worker thread only
+    private void removeDevice(String id) {
+        mDevices.remove(id);
+        mNameIndex.remove(id);
+        mPresence.forget(id);
+        mDeviceCache.remove(id);
+        LauncherPool.getInstance().evict(id);
+        // a departed device must not hold one of the few warm slots until it times out
+        Backends.prewarmer().release(id);
+        Backends.circuitBreaker().reset(id);
+    }
+
+    // Worker thread only, the device was just reported by discovery
+    private void touch(String id) {
+        mPresence.touch(id);
+        if (!mSweepScheduled) {
+            mSweepScheduled = true;
+            mWorker.postDelayed(mSweep, SWEEP_INTERVAL_MS);
+        }
+    }
+
+    // Ages the devices that discovery stopped reporting without a removal,
+    // only runs while there are devices to track
+    private final Runnable mSweep = new Runnable() {
+        @Override
+        public void run() {
+            mPresence.sweep(new PresenceTracker.Listener() {
+                @Override
+                public void onStale(String id) {
+                    Device device = mDevices.getById(id);
+                    if (device != null) {
+                        Metrics.counter(Metrics.DISCOVERY_STALE).increment();
+                        mDevices.update(device.asStale());
+                    }
+                }
+
+                @Override
+                public void onExpired(String id) {
+                    Metrics.counter(Metrics.DISCOVERY_EXPIRED).increment();
+                    removeDevice(id);
+                }
+            });
+            schedulePublish();
+            mSweepScheduled = mPresence.size() > 0;
+            if (mSweepScheduled) {
+                mWorker.postDelayed(mSweep, SWEEP_INTERVAL_MS);
+            }
+        }
+    };
+
+    // Apply the event on the worker, it is published
+    // together with any other events from the same burst
+    private void postDiscoveryEvent(final int generation, final Runnable event) {
+        mWorker.post(new Runnable() {
+            @Override
+            public void run() {
+                if (generation == mGeneration) {
+                    event.run();
+                    schedulePublish();
+                }
+            }
+        });
+    }
+
+    // Worker thread only
+    private void schedulePublish() {
+        // devices hidden by the filter change no rows but may change the counts
+        if (mPublishScheduled || (mChanges.isEmpty() && mDevices.getVersion() == mPublishedVersion)) {
+            return;
+        }
+        mPublishScheduled = true;
+        mWorker.postDelayed(mPublish, PUBLISH_INTERVAL_MS);
+    }
+
+    private final Runnable mPublish = new Runnable() {
+        @Override
+        public void run() {
+            mPublishScheduled = false;
+            final DeviceSnapshot<Device> snapshot = mDevices.snapshot();
+            final DeviceFacets.Counts counts = mDevices.getFacets().count(mQuery);
+            mPublishedVersion = snapshot.getVersion();
+            final DeviceChanges changes = mChanges;
+            mChanges = new DeviceChanges();
+            mDevices.setCallback(mChanges);
+            mMainHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    // the changes lead from the previous snapshot to this one
+                    mSnapshot = snapshot;
+                    for (DeviceRegistry.Callback observer : mObservers) {
+                        changes.dispatchTo(observer);
+                    }
+                    if (!counts.equals(mCounts)) {
+                        mCounts = counts;
+                        for (CountsObserver observer : mCountsObservers) {
+                            observer.onCountsChanged(counts);
+                        }
+                    }
+                }
+            });
+        }
+    };
+}
@@ -0,0 +1,236 @@
+//
+// Copyright (c) Microsoft Corporation. All rights reserved.
+//
+
+package com.microsoft.romanapp;
+
+import android.os.SystemClock;
+
+import com.microsoft.connecteddevices.ConnectedDevicesException;
+import com.microsoft.connecteddevices.IRemoteLauncherListener;
+import com.microsoft.connecteddevices.RemoteLaunchUriStatus;
+import com.microsoft.connecteddevices.RemoteLauncher;
+import com.microsoft.connecteddevices.RemoteSystem;
+import com.microsoft.connecteddevices.RemoteSystemConnectionRequest;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Reuses the RemoteSystemConnectionRequest and RemoteLauncher of each device across launches.
+ *
+ * Entries are keyed by RemoteSystem id and dropped when the device is removed, when discovery
+ * hands out a new RemoteSystem for the id, or after they have been idle for a while.
+ * An entry can also be created ahead of the first launch by prewarm.
+ * Launch latency is tracked separately for fresh, prewarmed and reused connections
+ * to estimate the time saved.
+ */
+public final class LauncherPool {
+    private static final long IDLE_TIMEOUT_MS = 5 * 60 * 1000;
+
+    private static final LauncherPool sInstance = new LauncherPool();
+
+    private static final class Entry {
+        RemoteSystem system;
+        RemoteSystemConnectionRequest request;
+        RemoteLauncher launcher;
+        long lastUsed;
+        // created by prewarm and not launched on yet
+        boolean prewarmed;
+    }
+
+    private enum Connection {
+        FRESH,
+        PREWARMED,
+        REUSED
+    }
+
+    private final Map<String, Entry> mEntries = new HashMap<>();
+
+    // guarded by this
+    private long mReuses = 0;
+    private long mMisses = 0;
+    private long mEvictions = 0;
+    private long mFreshLaunches = 0;
+    private long mFreshLatencyMs = 0;
+    private long mReusedLaunches = 0;
+    private long mReusedLatencyMs = 0;
+    private long mPrewarms = 0;
+    private long mPrewarmedLaunches = 0;
+    private long mPrewarmedLatencyMs = 0;
+
+    public static LauncherPool getInstance() {
+        return sInstance;
+    }
+
+    private LauncherPool() {
+    }
+
+    /**
+     * Launches the URI on the system through its cached connection, creating one if needed.
+     */
+    public void launchUri(RemoteSystem system, String uri, final IRemoteLauncherListener listener)
+            throws ConnectedDevicesException {
+        final Connection connection;
+        Entry entry;
+        synchronized (this) {
+            long now = SystemClock.elapsedRealtime();
+            evictIdle(now);
+            entry = getEntry(system);
+            if (entry == null) {
+                mMisses++;
+                connection = Connection.FRESH;
+                entry = createEntry(system);
+            } else if (entry.prewarmed) {
+                mReuses++;
+                connection = Connection.PREWARMED;
+                entry.prewarmed = false;
+            } else {
+                mReuses++;
+                connection = Connection.REUSED;
+            }
+            entry.lastUsed = now;
+        }
+
+        final long start = SystemClock.elapsedRealtime();
+        entry.launcher.LaunchUriAsync(entry.request, uri, new IRemoteLauncherListener() {
+            @Override
+            public void onCompleted(RemoteLaunchUriStatus status) {
+                recordLatency(connection, SystemClock.elapsedRealtime() - start);
+                listener.onCompleted(status);
+            }
+        });
+    }
+
+    /**
+     * Creates the connection request and launcher of the system before its first launch.
+     * This version of the SDK only connects inside LaunchUriAsync, so only the setup
+     * in front of that call is moved out of the launch.
+     */
+    public synchronized void prewarm(RemoteSystem system) {
+        evictIdle(SystemClock.elapsedRealtime());
+        if (getEntry(system) != null) {
+            return;
+        }
+        Entry entry = createEntry(system);
+        entry.prewarmed = true;
+        entry.lastUsed = SystemClock.elapsedRealtime();
+        mPrewarms++;
+    }
+
+    /**
+     * Drops the entry created by prewarm if no launch has used it.
+     */
+    public synchronized void cancelPrewarm(String id) {
+        Entry entry = mEntries.get(id);
+        if (entry != null && entry.prewarmed) {
+            mEntries.remove(id);
+            mEvictions++;
+        }
+    }
+
+    /**
+     * Drops the cached connection of a device that is gone.
+     */
+    public synchronized void evict(String id) {
+        if (mEntries.remove(id) != null) {
+            mEvictions++;
+        }
+    }
+
+    public synchronized long getReuses() {
+        return mReuses;
+    }
+
+    public synchronized long getMisses() {
+        return mMisses;
+    }
+
+    public synchronized long getEvictions() {
+        return mEvictions;
+    }
+
+    /**
+     * Estimated launch time saved by reuse: the difference between the average fresh and
+     * reused launch latency, times the number of reused launches. Zero until both were seen.
+     */
+    public synchronized long getSavedLatencyMs() {
+        if (mFreshLaunches == 0 || mReusedLaunches == 0) {
+            return 0;
+        }
+        long averageFresh = mFreshLatencyMs / mFreshLaunches;
+        long averageReused = mReusedLatencyMs / mReusedLaunches;
+        return Math.max(0, averageFresh - averageReused) * mReusedLaunches;
+    }
+
+    /**
+     * Estimated first launch time saved by prewarming, computed like getSavedLatencyMs
+     * from the fresh and prewarmed launches.
+     */
+    public synchronized long getPrewarmSavedLatencyMs() {
+        if (mFreshLaunches == 0 || mPrewarmedLaunches == 0) {
+            return 0;
+        }
+        long averageFresh = mFreshLatencyMs / mFreshLaunches;
+        long averagePrewarmed = mPrewarmedLatencyMs / mPrewarmedLaunches;
+        return Math.max(0, averageFresh - averagePrewarmed) * mPrewarmedLaunches;
+    }
+
+    public synchronized String getStats() {
+        return "reused " + mReuses + ", created " + mMisses + ", evicted " + mEvictions
+                + ", saved ~" + getSavedLatencyMs() + " ms"
+                + ", prewarmed " + mPrewarms + " (" + mPrewarmedLaunches + " used, saved ~"
+                + getPrewarmSavedLatencyMs() + " ms)";
+    }
+
+    // Returns the entry of the system, dropping it if discovery has handed out a newer RemoteSystem
+    private Entry getEntry(RemoteSystem system) {
+        Entry entry = mEntries.get(system.getId());
+        if (entry != null && entry.system != system) {
+            // discovery reported a newer RemoteSystem, its connection must be rebuilt
+            mEntries.remove(system.getId());
+            mEvictions++;
+            return null;
+        }
+        return entry;
+    }
+
+    private Entry createEntry(RemoteSystem system) {
+        Entry entry = new Entry();
+        entry.system = system;
+        entry.request = new RemoteSystemConnectionRequest(system);
+        entry.launcher = new RemoteLauncher();
+        mEntries.put(system.getId(), entry);
+        return entry;
+    }
+
+    private synchronized void recordLatency(Connection connection, long latencyMs) {
+        switch (connection) {
+            case FRESH:
+                mFreshLaunches++;
+                mFreshLatencyMs += latencyMs;
+                Metrics.histogram(Metrics.LAUNCH_FIRST_LATENCY_COLD).record(latencyMs);
+                break;
+            case PREWARMED:
+                mPrewarmedLaunches++;
+                mPrewarmedLatencyMs += latencyMs;
+                Metrics.histogram(Metrics.LAUNCH_FIRST_LATENCY_PREWARMED).record(latencyMs);
+                break;
+            default:
+                mReusedLaunches++;
+                mReusedLatencyMs += latencyMs;
+                break;
+        }
+    }
+
+    private void evictIdle(long now) {
+        Iterator<Entry> it = mEntries.values().iterator();
+        while (it.hasNext()) {
+            if (now - it.next().lastUsed > IDLE_TIMEOUT_MS) {
+                it.remove();
+                mEvictions++;
+            }
+        }
+    }
+}
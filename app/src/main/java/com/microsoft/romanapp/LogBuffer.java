@@ -0,0 +1,62 @@
+//
+// Copyright (c) Microsoft Corporation. All rights reserved.
+//
+
+package com.microsoft.romanapp;
+
+/**
+ * Fixed-capacity ring buffer of log lines, the oldest line is overwritten once it is full.
+ * Not thread safe.
+ */
+public class LogBuffer {
+    private final String[] lines;
+    private int start = 0;
+    private int size = 0;
+
+    public LogBuffer(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be at least 1");
+        }
+        lines = new String[capacity];
+    }
+
+    public int capacity() {
+        return lines.length;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the line at the given position, 0 being the oldest line kept.
+     */
+    public String get(int position) {
+        if (position < 0 || position >= size) {
+            throw new IndexOutOfBoundsException("position " + position + ", size " + size);
+        }
+        return lines[(start + position) % lines.length];
+    }
+
+    /**
+     * Adds a line and returns true if the oldest line had to be dropped for it.
+     */
+    public boolean add(String line) {
+        int end = (start + size) % lines.length;
+        lines[end] = line;
+        if (size < lines.length) {
+            size++;
+            return false;
+        }
+        start = (start + 1) % lines.length;
+        return true;
+    }
+
+    public void clear() {
+        for (int i = 0; i < lines.length; i++) {
+            lines[i] = null;
+        }
+        start = 0;
+        size = 0;
+    }
+}
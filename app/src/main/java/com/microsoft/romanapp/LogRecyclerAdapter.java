@@ -0,0 +1,133 @@
+//
+// Copyright (c) Microsoft Corporation. All rights reserved.
+//
+
+package com.microsoft.romanapp;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+import android.view.Choreographer;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Shows the most recent log lines in a RecyclerView.
+ *
+ * Lines are kept in a LogBuffer, so memory stays constant however much is logged, and only
+ * the visible rows are laid out. Lines appended from any thread are collected and applied
+ * once per frame, and a burst of appends posts a single flush.
+ */
+public class LogRecyclerAdapter extends RecyclerView.Adapter<LogRecyclerAdapter.LineViewHolder> {
+
+    public static final int DEFAULT_CAPACITY = 500;
+
+    static class LineViewHolder extends RecyclerView.ViewHolder {
+        TextView line;
+
+        LineViewHolder(View itemView) {
+            super(itemView);
+            line = (TextView) itemView.findViewById(R.id.log_line);
+        }
+    }
+
+    private final RecyclerView mRecyclerView;
+    // Not mRecyclerView.post: before API 24 a post from a background thread while the view is
+    // detached lands in that thread's run queue and never runs, so no flush would follow
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+    private final LogBuffer mLines;
+    // Lines that have not been shown yet, guarded by itself
+    private final ArrayDeque<String> mPending = new ArrayDeque<>();
+    // Set while a flush is posted and has not taken the pending lines yet, guarded by mPending
+    private boolean mFlushPending = false;
+
+    public LogRecyclerAdapter(RecyclerView recyclerView, int capacity) {
+        mRecyclerView = recyclerView;
+        mLines = new LogBuffer(capacity);
+        LinearLayoutManager layoutManager = new LinearLayoutManager(recyclerView.getContext());
+        layoutManager.setStackFromEnd(true);
+        recyclerView.setLayoutManager(layoutManager);
+        recyclerView.setAdapter(this);
+    }
+
+    /**
+     * Appends a line, safe to call from any thread.
+     */
+    public void append(String line) {
+        boolean schedule;
+        synchronized (mPending) {
+            mPending.addLast(line);
+            // anything beyond the capacity would be dropped before it is ever shown
+            if (mPending.size() > mLines.capacity()) {
+                mPending.pollFirst();
+            }
+            schedule = !mFlushPending;
+            mFlushPending = true;
+        }
+        if (schedule) {
+            mMainHandler.post(mScheduleFlush);
+        }
+    }
+
+    private final Runnable mScheduleFlush = new Runnable() {
+        @Override
+        public void run() {
+            Choreographer.getInstance().postFrameCallback(mFlush);
+        }
+    };
+
+    private final Choreographer.FrameCallback mFlush = new Choreographer.FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            List<String> pending;
+            synchronized (mPending) {
+                // lines appended from here on post a new flush
+                mFlushPending = false;
+                if (mPending.isEmpty()) {
+                    return;
+                }
+                pending = new ArrayList<>(mPending);
+                mPending.clear();
+            }
+            int oldSize = mLines.size();
+            int dropped = 0;
+            for (String line : pending) {
+                if (mLines.add(line)) {
+                    dropped++;
+                }
+            }
+            // the dropped lines were the oldest ones that were on screen
+            int removed = Math.min(dropped, oldSize);
+            if (removed > 0) {
+                notifyItemRangeRemoved(0, removed);
+            }
+            int kept = oldSize - removed;
+            notifyItemRangeInserted(kept, mLines.size() - kept);
+            mRecyclerView.scrollToPosition(mLines.size() - 1);
+        }
+    };
+
+    @Override
+    public LineViewHolder onCreateViewHolder(ViewGroup viewGroup, int i) {
+        View v = LayoutInflater.from(viewGroup.getContext()).
+                inflate(R.layout.log_line, viewGroup, false);
+        return new LineViewHolder(v);
+    }
+
+    @Override
+    public void onBindViewHolder(LineViewHolder lineViewHolder, int i) {
+        lineViewHolder.line.setText(mLines.get(i));
+    }
+
+    @Override
+    public int getItemCount() {
+        return mLines.size();
+    }
+}
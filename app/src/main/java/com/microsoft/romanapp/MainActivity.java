@@ -10,14 +10,17 @@ import android.content.Intent;
 import android.graphics.Bitmap;
 import android.net.Uri;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
 import android.support.v4.app.FragmentActivity;
+import android.support.v7.widget.RecyclerView;
 import android.util.Log;
 import android.view.View;
 import android.webkit.WebChromeClient;
 import android.webkit.WebView;
 import android.webkit.WebViewClient;
 import android.widget.Button;
-import android.widget.TextView;
 import android.widget.Toast;
 
 import com.microsoft.connecteddevices.IAuthCodeProvider;
@@ -32,31 +35,52 @@ public class MainActivity extends FragmentActivity {
     // При успешной авторизации мы будем перенаправлены по этой ссылке, вместе с OAuth ключом
     private static final String REDIRECT_URI = "https://login.live.com/oauth20_desktop.srf";
 
-    private TextView mStatusOutput;
+    private LogRecyclerAdapter mStatusOutput;
     private Button mSignInButton;
     private String mOauthUrl;
     WebView mWebView;
     Dialog mAuthDialog;
     private Platform.IAuthCodeHandler mAuthCodeHandler;
+    // Platform callbacks are posted here rather than run with runOnUiThread, which runs them
+    // immediately when called on the main thread, possibly before the views are inflated
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
 
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
-        setContentView(R.layout.activity_main);
+        StartupTrace.mark(StartupTrace.MAIN_CREATE);
+
+        if (Backends.isSimulated()) {
+            // the simulator needs neither the platform nor a signed in MSA
+            inflateContentView();
+            appendStatus("Using simulated connected devices");
+            startActivity(new Intent(this, DeviceRecyclerActivity.class));
+            return;
+        }
 
-        mStatusOutput = (TextView) findViewById(R.id.status_output);
-        mSignInButton = (Button) findViewById(R.id.sign_in_button);
-        mAuthDialog = new Dialog(this);
-        mAuthDialog.setContentView(R.layout.auth_dialog);
-        mWebView = (WebView) mAuthDialog.findViewById(R.id.webv);
-        mWebView.setWebChromeClient(new WebChromeClient());
-        mWebView.getSettings().setJavaScriptEnabled(true);
-        mWebView.getSettings().setDomStorageEnabled(true);
+        // Initialization runs in the background, so start it before inflating the UI.
+        // Its callbacks are posted to the main thread and run after onCreate returns.
+        initializePlatform();
+        inflateContentView();
 
-        // Initialize Microsoft Connected Devices Platform
         appendStatus("Initializing Platform");
         appendStatus("Platform will attempt to use previously saved refresh token");
+    }
+
+    private void inflateContentView() {
+        setContentView(R.layout.activity_main);
+
+        mStatusOutput = new LogRecyclerAdapter((RecyclerView) findViewById(R.id.status_output),
+                LogRecyclerAdapter.DEFAULT_CAPACITY);
+        mSignInButton = (Button) findViewById(R.id.sign_in_button);
+        StartupTrace.mark(StartupTrace.MAIN_CONTENT_SET);
+    }
+
+    // Initialize Microsoft Connected Devices Platform
+    private void initializePlatform() {
+        StartupTrace.mark(StartupTrace.PLATFORM_INIT_STARTED);
+        final long initializeStartMs = SystemClock.elapsedRealtime();
         Platform.initialize(getApplicationContext(), new IAuthCodeProvider() {
                     @Override
                     /**
@@ -68,7 +92,7 @@ public class MainActivity extends FragmentActivity {
                         Log.d(LOG_TAG, "fetchAuthCodeAsync() at URL: " + oauthUrl);
                         mOauthUrl = oauthUrl;
                         mAuthCodeHandler = authCodeHandler;
-                        runOnUiThread(new Runnable() {
+                        mMainHandler.post(new Runnable() {
                             @Override
                             public void run() {
                                 appendStatus("Platform needs an MSA Auth code");
@@ -90,35 +114,50 @@ public class MainActivity extends FragmentActivity {
                 },
                 new IPlatformInitializationHandler() {
                     @Override
-                    public void onDone(boolean succeeded) {
+                    public void onDone(final boolean succeeded) {
+                        long initializeMs = SystemClock.elapsedRealtime() - initializeStartMs;
+                        Metrics.histogram(succeeded
+                                ? Metrics.PLATFORM_INIT_LATENCY : Metrics.PLATFORM_INIT_LATENCY_FAILED)
+                                .record(initializeMs);
                         if (succeeded) {
-                            Log.i(LOG_TAG, "Initialized platform successfully");
-                            appendStatus("Platform initialization complete");
-                            // start device discovery in another activity
-                            Intent intent = new Intent(MainActivity.this, DeviceRecyclerActivity.class);
-                            startActivity(intent);
-                        } else {
-                            Log.e(LOG_TAG, "Error initializing platform");
-                            appendStatus("Platform initialization failed");
+                            StartupTrace.mark(StartupTrace.PLATFORM_INITIALIZED);
                         }
+                        // posted, since initialization may finish before onCreate inflated the UI
+                        mMainHandler.post(new Runnable() {
+                            @Override
+                            public void run() {
+                                if (succeeded) {
+                                    Log.i(LOG_TAG, "Initialized platform successfully");
+                                    appendStatus("Platform initialization complete");
+                                    // start device discovery in another activity
+                                    Intent intent = new Intent(MainActivity.this, DeviceRecyclerActivity.class);
+                                    startActivity(intent);
+                                } else {
+                                    Log.e(LOG_TAG, "Error initializing platform");
+                                    appendStatus("Platform initialization failed");
+                                }
+                            }
+                        });
                     }
                 });
     }
 
-    @Override
-    public void onResume() {
-        super.onResume();
-        Platform.resume();
-    }
-
-    @Override
-    public void onPause() {
-        Platform.suspend();
-        super.onPause();
+    // The WebView is expensive to create and only needed when the platform asks for an auth code
+    private void createAuthDialog() {
+        mAuthDialog = new Dialog(this);
+        mAuthDialog.setContentView(R.layout.auth_dialog);
+        mWebView = (WebView) mAuthDialog.findViewById(R.id.webv);
+        mWebView.setWebChromeClient(new WebChromeClient());
+        mWebView.getSettings().setJavaScriptEnabled(true);
+        mWebView.getSettings().setDomStorageEnabled(true);
+        StartupTrace.mark(StartupTrace.AUTH_DIALOG_CREATED);
     }
 
     public void onLoginClick(View view) {
         mSignInButton.setEnabled(false);
+        if (mAuthDialog == null) {
+            createAuthDialog();
+        }
         // load the given URL for auth code fetching
         mWebView.loadUrl(mOauthUrl);
         // define a WebViewClient to interact with this URL
@@ -171,16 +210,8 @@ public class MainActivity extends FragmentActivity {
     private void appendStatus(final String status) {
         if (mStatusOutput == null) {
             Log.e(LOG_TAG, "StatusOutput field is null");
+            return;
         }
-
-        runOnUiThread(new Runnable() {
-            @Override
-            public void run() {
-                String prevStatus = mStatusOutput.getText().toString();
-                String newStatus = prevStatus + "\n" + status;
-
-                mStatusOutput.setText(newStatus);
-            }
-        });
+        mStatusOutput.append(status);
     }
 }
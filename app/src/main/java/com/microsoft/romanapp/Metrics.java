@@ -0,0 +1,249 @@
+//
+// Copyright (c) Microsoft Corporation. All rights reserved.
+//
+
+package com.microsoft.romanapp;
+
+import android.os.SystemClock;
+
+import com.microsoft.romanapp.core.LaunchStatus;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * In-process registry of counters, rates and latency histograms.
+ *
+ * Metrics are created on first use by name and are safe to update from any thread;
+ * an update of an existing metric is a few atomic operations and never allocates.
+ * Names are constants, names that depend on a value are built once below rather than per update.
+ */
+public final class Metrics {
+
+    public static final String DISCOVERY_TIME_TO_FIRST_DEVICE = "discovery.time_to_first_device_ms";
+    public static final String DISCOVERY_EVENTS = "discovery.events";
+    public static final String DISCOVERY_STALE = "discovery.stale";
+    public static final String DISCOVERY_EXPIRED = "discovery.expired";
+    public static final String DISCOVERY_SCANS = "discovery.scans";
+    public static final String DISCOVERY_SCAN_LENGTH = "discovery.scan_length_ms";
+    public static final String DISCOVERY_SCANNING_MS = "discovery.scanning_ms";
+    public static final String LAUNCH_LATENCY = "launch.latency_ms";
+    public static final String LAUNCH_FIRST_LATENCY = "launch.first_latency_ms";
+    public static final String LAUNCH_FIRST_LATENCY_COLD = LAUNCH_FIRST_LATENCY + ".cold";
+    public static final String LAUNCH_FIRST_LATENCY_PREWARMED = LAUNCH_FIRST_LATENCY + ".prewarmed";
+    public static final String LAUNCH_RETRIES = "launch.retries";
+    public static final String LAUNCH_REJECTED = "launch.circuit_rejected";
+    public static final String LAUNCH_CIRCUIT_OPENED = "launch.circuit_opened";
+    public static final String LAUNCH_DEDUPLICATED = "launch.deduplicated";
+    public static final String LAUNCH_SUPPRESSED = "launch.repeat_suppressed";
+    public static final String PLATFORM_INIT_LATENCY = "platform.initialize_ms";
+    public static final String PLATFORM_INIT_LATENCY_FAILED = PLATFORM_INIT_LATENCY + ".failed";
+    public static final String PLATFORM_RESUMES = "platform.resumes";
+    public static final String PLATFORM_SUSPENDS = "platform.suspends";
+    public static final String PLATFORM_AVOIDED_CYCLES = "platform.avoided_suspend_cycles";
+
+    // LAUNCH_LATENCY + "." + status, by status ordinal
+    private static final String[] sLaunchLatencyNames = new String[LaunchStatus.values().length];
+
+    static {
+        for (LaunchStatus status : LaunchStatus.values()) {
+            sLaunchLatencyNames[status.ordinal()] = LAUNCH_LATENCY + "." + status.name();
+        }
+    }
+
+    private static final ConcurrentMap<String, Counter> sCounters = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<String, Rate> sRates = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<String, Histogram> sHistograms = new ConcurrentHashMap<>();
+
+    private Metrics() {
+    }
+
+    public static final class Counter {
+        private final AtomicLong value = new AtomicLong();
+
+        public void increment() {
+            value.incrementAndGet();
+        }
+
+        public void add(long delta) {
+            value.addAndGet(delta);
+        }
+
+        public long get() {
+            return value.get();
+        }
+    }
+
+    /**
+     * Counts events and reports how many arrived per second between the first and the latest one.
+     */
+    public static final class Rate {
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong firstMs = new AtomicLong(-1);
+        private final AtomicLong lastMs = new AtomicLong(-1);
+
+        public void mark() {
+            long now = SystemClock.elapsedRealtime();
+            firstMs.compareAndSet(-1, now);
+            lastMs.set(now);
+            count.incrementAndGet();
+        }
+
+        public long getCount() {
+            return count.get();
+        }
+
+        public double getPerSecond() {
+            long elapsed = lastMs.get() - firstMs.get();
+            long n = count.get();
+            if (n < 2 || elapsed <= 0) {
+                return 0;
+            }
+            return (n - 1) * 1000.0 / elapsed;
+        }
+    }
+
+    /**
+     * Histogram with power-of-two buckets: bucket i holds values in [2^(i-1), 2^i).
+     */
+    public static final class Histogram {
+        private static final int BUCKETS = 40;
+
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong sum = new AtomicLong();
+        private final AtomicLong max = new AtomicLong(Long.MIN_VALUE);
+
+        public void record(long value) {
+            if (value < 0) {
+                value = 0;
+            }
+            int bucket = Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(value));
+            buckets.incrementAndGet(bucket);
+            count.incrementAndGet();
+            sum.addAndGet(value);
+            long current;
+            while (value > (current = max.get()) && !max.compareAndSet(current, value)) {
+                // retry until this value or a larger one is stored
+            }
+        }
+
+        public long getCount() {
+            return count.get();
+        }
+
+        public double getMean() {
+            long n = count.get();
+            return n == 0 ? 0 : (double) sum.get() / n;
+        }
+
+        public long getMax() {
+            return count.get() == 0 ? 0 : max.get();
+        }
+
+        /**
+         * Upper bound of the bucket holding the given percentile (0-100).
+         */
+        public long getPercentile(double percentile) {
+            long n = count.get();
+            if (n == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(percentile / 100.0 * n);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += buckets.get(i);
+                if (seen >= rank) {
+                    return Math.min(getMax(), i == 0 ? 0 : (1L << i) - 1);
+                }
+            }
+            return getMax();
+        }
+    }
+
+    /**
+     * Name of the latency histogram of the launches that completed with the status.
+     */
+    public static String launchLatency(LaunchStatus status) {
+        return sLaunchLatencyNames[status.ordinal()];
+    }
+
+    public static Counter counter(String name) {
+        Counter counter = sCounters.get(name);
+        if (counter == null) {
+            sCounters.putIfAbsent(name, new Counter());
+            counter = sCounters.get(name);
+        }
+        return counter;
+    }
+
+    public static Rate rate(String name) {
+        Rate rate = sRates.get(name);
+        if (rate == null) {
+            sRates.putIfAbsent(name, new Rate());
+            rate = sRates.get(name);
+        }
+        return rate;
+    }
+
+    public static Histogram histogram(String name) {
+        Histogram histogram = sHistograms.get(name);
+        if (histogram == null) {
+            sHistograms.putIfAbsent(name, new Histogram());
+            histogram = sHistograms.get(name);
+        }
+        return histogram;
+    }
+
+    public static void reset() {
+        sCounters.clear();
+        sRates.clear();
+        sHistograms.clear();
+    }
+
+    /**
+     * Human readable snapshot of every metric, sorted by name.
+     */
+    public static String dump() {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, Counter> e : new TreeMap<>(sCounters).entrySet()) {
+            sb.append(e.getKey()).append(" count=").append(e.getValue().get()).append('\n');
+        }
+        for (Map.Entry<String, Rate> e : new TreeMap<>(sRates).entrySet()) {
+            Rate rate = e.getValue();
+            sb.append(e.getKey())
+                    .append(" count=").append(rate.getCount())
+                    .append(" per_second=").append(String.format("%.1f", rate.getPerSecond()))
+                    .append('\n');
+        }
+        for (Map.Entry<String, Histogram> e : new TreeMap<>(sHistograms).entrySet()) {
+            Histogram h = e.getValue();
+            sb.append(e.getKey())
+                    .append(" count=").append(h.getCount())
+                    .append(" mean=").append(String.format("%.1f", h.getMean()))
+                    .append(" p50<=").append(h.getPercentile(50))
+                    .append(" p90<=").append(h.getPercentile(90))
+                    .append(" p99<=").append(h.getPercentile(99))
+                    .append(" max=").append(h.getMax())
+                    .append('\n');
+        }
+        return sb.toString();
+    }
+
+    public static void dumpToFile(File file) throws IOException {
+        Writer writer = new FileWriter(file);
+        try {
+            writer.write(dump());
+        } finally {
+            writer.close();
+        }
+    }
+}
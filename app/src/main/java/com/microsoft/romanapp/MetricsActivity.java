@@ -0,0 +1,117 @@
+//
+// Copyright (c) Microsoft Corporation. All rights reserved.
+//
+
+package com.microsoft.romanapp;
+
+import android.app.Activity;
+import android.os.Bundle;
+import android.util.Log;
+import android.view.View;
+import android.widget.Button;
+import android.widget.TextView;
+import android.widget.Toast;
+
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Debug screen that shows the current Metrics and writes them to a file for comparison across builds.
+ */
+public class MetricsActivity extends Activity {
+    private static final String TAG = MetricsActivity.class.getName();
+
+    private TextView mMetricsTv;
+    private Button mTraceButton;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.metrics);
+
+        mMetricsTv = (TextView) findViewById(R.id.metrics_output);
+        mTraceButton = (Button) findViewById(R.id.trace_button);
+        showTraceState();
+        showMetrics();
+    }
+
+    public void onRefreshClick(View view) {
+        showMetrics();
+    }
+
+    public void onDumpClick(View view) {
+        File file = new File(getOutputDir(), "metrics-" + System.currentTimeMillis() + ".txt");
+        try {
+            Metrics.dumpToFile(file);
+            Log.i(TAG, "Metrics written to " + file.getPath());
+            Toast.makeText(this, "Metrics written to " + file.getPath(), Toast.LENGTH_SHORT).show();
+        } catch (IOException e) {
+            Log.e(TAG, "Could not write metrics: " + e.getMessage());
+            Toast.makeText(this, "Could not write metrics", Toast.LENGTH_SHORT).show();
+        }
+    }
+
+    public void onTraceClick(View view) {
+        if (Backends.isRecordingDiscoveryTrace()) {
+            int events = Backends.stopDiscoveryTrace();
+            Log.i(TAG, "Discovery trace stopped after " + events + " events");
+            Toast.makeText(this, "Trace holds " + events + " events", Toast.LENGTH_SHORT).show();
+        } else {
+            // pull it with adb and replay it with the benchmarks, see TraceReplayBenchmark
+            File file = new File(getOutputDir(), "discovery-" + System.currentTimeMillis() + ".trace");
+            try {
+                Backends.startDiscoveryTrace(file);
+                Log.i(TAG, "Recording discovery trace to " + file.getPath());
+                Toast.makeText(this, "Recording discovery to " + file.getPath(), Toast.LENGTH_SHORT).show();
+            } catch (IOException e) {
+                Log.e(TAG, "Could not record discovery trace: " + e.getMessage());
+                Toast.makeText(this, "Could not record discovery trace", Toast.LENGTH_SHORT).show();
+            }
+        }
+        showTraceState();
+    }
+
+    /**
+     * Feeds the newest recorded trace through the device list in place of discovery.
+     */
+    public void onReplayClick(View view) {
+        File newest = null;
+        File[] files = getOutputDir().listFiles();
+        if (files != null) {
+            for (File file : files) {
+                if (file.getName().endsWith(".trace")
+                        && (newest == null || file.lastModified() > newest.lastModified())) {
+                    newest = file;
+                }
+            }
+        }
+        if (newest == null) {
+            Toast.makeText(this, "No discovery trace recorded yet", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        Backends.replayDiscoveryTrace(newest);
+        DiscoverySession.getInstance(this).restart();
+        Log.i(TAG, "Replaying discovery trace " + newest.getPath());
+        Toast.makeText(this, "Replaying " + newest.getName(), Toast.LENGTH_SHORT).show();
+        showTraceState();
+    }
+
+    private void showTraceState() {
+        mTraceButton.setText(Backends.isRecordingDiscoveryTrace() ? "Stop trace" : "Record trace");
+    }
+
+    private File getOutputDir() {
+        // app-specific external storage can be pulled with adb without root
+        File dir = getExternalFilesDir(null);
+        return dir != null ? dir : getFilesDir();
+    }
+
+    private void showMetrics() {
+        String dump = Metrics.dump() + "launcher_pool " + LauncherPool.getInstance().getStats() + "\n"
+                + "discovery_scheduler " + DiscoverySession.getInstance(this).getSchedulerStats() + "\n"
+                + "device_storage size=" + DeviceStorage.size() + " hits=" + DeviceStorage.getHits()
+                + " misses=" + DeviceStorage.getMisses() + " evictions=" + DeviceStorage.getEvictions() + "\n";
+        mMetricsTv.setText(dump);
+    }
+}
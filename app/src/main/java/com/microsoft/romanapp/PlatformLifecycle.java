@@ -0,0 +1,126 @@
+//
+// Copyright (c) Microsoft Corporation. All rights reserved.
+//
+
+package com.microsoft.romanapp;
+
+import android.app.Activity;
+import android.app.Application;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.microsoft.connecteddevices.Platform;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Resumes the connected devices platform while any activity of the app is resumed,
+ * and suspends it once none has been for the grace period.
+ *
+ * Moving from one activity to another pauses the first before resuming the second, so
+ * suspending on every pause would cycle the platform, and interrupt discovery, on each
+ * navigation. The grace period also covers configuration changes such as rotation.
+ * Work that should not run while the platform is suspended listens for it with addListener.
+ * Runs on the main thread.
+ */
+public class PlatformLifecycle implements Application.ActivityLifecycleCallbacks {
+    private static final String TAG = PlatformLifecycle.class.getName();
+
+    /**
+     * Told on the main thread when the platform is suspended or resumed.
+     */
+    public interface Listener {
+        void onPlatformSuspended();
+
+        void onPlatformResumed();
+    }
+
+    private static final List<Listener> sListeners = new ArrayList<>();
+
+    private final long mGracePeriodMs;
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+    private int mResumedActivities = 0;
+    private boolean mPlatformResumed = false;
+    private boolean mSuspendPending = false;
+
+    public PlatformLifecycle(long gracePeriodMs) {
+        mGracePeriodMs = gracePeriodMs;
+    }
+
+    /**
+     * Main thread only.
+     */
+    public static void addListener(Listener listener) {
+        sListeners.add(listener);
+    }
+
+    public static void removeListener(Listener listener) {
+        sListeners.remove(listener);
+    }
+
+    @Override
+    public void onActivityResumed(Activity activity) {
+        mResumedActivities++;
+        if (mSuspendPending) {
+            // the app came back within the grace period, the platform stays resumed
+            mHandler.removeCallbacks(mSuspend);
+            mSuspendPending = false;
+            Metrics.counter(Metrics.PLATFORM_AVOIDED_CYCLES).increment();
+        }
+        if (!mPlatformResumed) {
+            mPlatformResumed = true;
+            Metrics.counter(Metrics.PLATFORM_RESUMES).increment();
+            Log.d(TAG, "Resuming the platform");
+            Platform.resume();
+            for (Listener listener : new ArrayList<>(sListeners)) {
+                listener.onPlatformResumed();
+            }
+        }
+    }
+
+    @Override
+    public void onActivityPaused(Activity activity) {
+        mResumedActivities--;
+        if (mResumedActivities == 0 && mPlatformResumed && !mSuspendPending) {
+            mSuspendPending = true;
+            mHandler.postDelayed(mSuspend, mGracePeriodMs);
+        }
+    }
+
+    private final Runnable mSuspend = new Runnable() {
+        @Override
+        public void run() {
+            mSuspendPending = false;
+            mPlatformResumed = false;
+            Metrics.counter(Metrics.PLATFORM_SUSPENDS).increment();
+            Log.d(TAG, "No activity in the foreground, suspending the platform");
+            for (Listener listener : new ArrayList<>(sListeners)) {
+                listener.onPlatformSuspended();
+            }
+            Platform.suspend();
+        }
+    };
+
+    @Override
+    public void onActivityCreated(Activity activity, Bundle savedInstanceState) {
+    }
+
+    @Override
+    public void onActivityStarted(Activity activity) {
+    }
+
+    @Override
+    public void onActivityStopped(Activity activity) {
+    }
+
+    @Override
+    public void onActivitySaveInstanceState(Activity activity, Bundle outState) {
+    }
+
+    @Override
+    public void onActivityDestroyed(Activity activity) {
+    }
+}
@@ -0,0 +1,44 @@
+//
+// Copyright (c) Microsoft Corporation. All rights reserved.
+//
+
+package com.microsoft.romanapp;
+
+import com.microsoft.connecteddevices.RemoteSystem;
+import com.microsoft.romanapp.core.DeviceKind;
+import com.microsoft.romanapp.core.RemoteDevice;
+
+/**
+ * RemoteDevice backed by a connected devices RemoteSystem.
+ */
+public class RemoteSystemDevice implements RemoteDevice {
+    private final RemoteSystem system;
+
+    public RemoteSystemDevice(RemoteSystem system) {
+        this.system = system;
+    }
+
+    public RemoteSystem getSystem() {
+        return system;
+    }
+
+    @Override
+    public String getId() {
+        return system.getId();
+    }
+
+    @Override
+    public String getDisplayName() {
+        return system.getDisplayName();
+    }
+
+    @Override
+    public DeviceKind getKind() {
+        return DeviceKind.fromName(system.getKind().name());
+    }
+
+    @Override
+    public boolean isAvailableByProximity() {
+        return system.isAvailableByProximity();
+    }
+}
@@ -0,0 +1,20 @@
+//
+// Copyright (c) Microsoft Corporation. All rights reserved.
+//
+
+package com.microsoft.romanapp;
+
+import android.app.Application;
+
+public class RomanApplication extends Application {
+    // Long enough to cover an activity transition or a rotation
+    private static final long PLATFORM_SUSPEND_GRACE_MS = 1000;
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        StartupTrace.start();
+        // The platform is resumed and suspended for the app as a whole, not per activity
+        registerActivityLifecycleCallbacks(new PlatformLifecycle(PLATFORM_SUSPEND_GRACE_MS));
+    }
+}
@@ -0,0 +1,84 @@
+//
+// Copyright (c) Microsoft Corporation. All rights reserved.
+//
+
+package com.microsoft.romanapp;
+
+import android.util.Log;
+
+import com.microsoft.connecteddevices.ConnectedDevicesException;
+import com.microsoft.connecteddevices.IRemoteSystemDiscoveryListener;
+import com.microsoft.connecteddevices.RemoteSystem;
+import com.microsoft.connecteddevices.RemoteSystemDiscovery;
+import com.microsoft.connecteddevices.RemoteSystemDiscoveryType;
+import com.microsoft.connecteddevices.RemoteSystemDiscoveryTypeFilter;
+import com.microsoft.connecteddevices.RemoteSystemKind;
+import com.microsoft.connecteddevices.RemoteSystemKindFilter;
+import com.microsoft.romanapp.core.BackendException;
+import com.microsoft.romanapp.core.DiscoveryBackend;
+import com.microsoft.romanapp.core.DiscoveryListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * DiscoveryBackend on top of the connected devices RemoteSystemDiscovery.
+ */
+public class SdkDiscoveryBackend implements DiscoveryBackend {
+    private static final String TAG = SdkDiscoveryBackend.class.getName();
+
+    private RemoteSystemDiscovery mDiscovery = null;
+
+    @Override
+    public void start(final DiscoveryListener listener) throws BackendException {
+        stop();
+        // Discovery always looks for every type and kind of system, the app narrows
+        // the already discovered devices in memory so a filter change needs no rescan.
+        mDiscovery = new RemoteSystemDiscovery.Builder().setListener(new IRemoteSystemDiscoveryListener() {
+            @Override
+            public void onRemoteSystemAdded(RemoteSystem remoteSystem) {
+                Log.d(TAG, "RemoteSystemAdded = " + remoteSystem.getDisplayName());
+                listener.onDeviceAdded(new RemoteSystemDevice(remoteSystem));
+            }
+
+            @Override
+            public void onRemoteSystemUpdated(RemoteSystem remoteSystem) {
+                Log.d(TAG, "RemoteSystemUpdated = " + remoteSystem.getDisplayName());
+                listener.onDeviceUpdated(new RemoteSystemDevice(remoteSystem));
+            }
+
+            @Override
+            public void onRemoteSystemRemoved(String remoteSystemId) {
+                Log.d(TAG, "RemoteSystemRemoved = id:" + remoteSystemId);
+                listener.onDeviceRemoved(remoteSystemId);
+            }
+        })
+                .filter(new RemoteSystemDiscoveryTypeFilter(RemoteSystemDiscoveryType.ANY))
+                .filter(new RemoteSystemKindFilter(new ArrayList<>(Arrays.asList(RemoteSystemKind.UNKNOWN,
+                        RemoteSystemKind.DESKTOP,
+                        RemoteSystemKind.HOLOGRAPHIC,
+                        RemoteSystemKind.PHONE,
+                        RemoteSystemKind.XBOX))))
+                .getResult();
+        // begin watching for remote devices
+        try {
+            Log.d(TAG, "Starting device discovery");
+            mDiscovery.start();
+        } catch (ConnectedDevicesException e) {
+            mDiscovery = null;
+            throw new BackendException("Could not start device discovery", e);
+        }
+    }
+
+    @Override
+    public void stop() {
+        if (mDiscovery != null) {
+            try {
+                mDiscovery.stop();
+            } catch (ConnectedDevicesException e) {
+                e.printStackTrace();
+            }
+            mDiscovery = null;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+//
+// Copyright (c) Microsoft Corporation. All rights reserved.
+//
+
+package com.microsoft.romanapp;
+
+import com.microsoft.connecteddevices.ConnectedDevicesException;
+import com.microsoft.connecteddevices.IRemoteLauncherListener;
+import com.microsoft.connecteddevices.RemoteLaunchUriStatus;
+import com.microsoft.romanapp.core.BackendException;
+import com.microsoft.romanapp.core.LaunchBackend;
+import com.microsoft.romanapp.core.LaunchCallback;
+import com.microsoft.romanapp.core.LaunchStatus;
+import com.microsoft.romanapp.core.Prewarmer;
+import com.microsoft.romanapp.core.RemoteDevice;
+
+/**
+ * LaunchBackend on top of the connected devices RemoteLauncher, through the LauncherPool.
+ */
+public class SdkLaunchBackend implements LaunchBackend, Prewarmer.Warmer {
+
+    @Override
+    public void prewarm(RemoteDevice device) throws BackendException {
+        if (!(device instanceof RemoteSystemDevice)) {
+            throw new BackendException("Device " + device.getId() + " was not found by the connected devices SDK");
+        }
+        LauncherPool.getInstance().prewarm(((RemoteSystemDevice) device).getSystem());
+    }
+
+    @Override
+    public void cancel(String id) {
+        LauncherPool.getInstance().cancelPrewarm(id);
+    }
+
+    @Override
+    public void launchUri(RemoteDevice device, String uri, final LaunchCallback callback) throws BackendException {
+        if (!(device instanceof RemoteSystemDevice)) {
+            throw new BackendException("Device " + device.getId() + " was not found by the connected devices SDK");
+        }
+        try {
+            LauncherPool.getInstance().launchUri(((RemoteSystemDevice) device).getSystem(), uri,
+                    new IRemoteLauncherListener() {
+                        @Override
+                        public void onCompleted(RemoteLaunchUriStatus status) {
+                            callback.onCompleted(LaunchStatus.fromName(status.name()));
+                        }
+                    });
+        } catch (ConnectedDevicesException e) {
+            throw new BackendException("Could not launch " + uri, e);
+        }
+    }
+}
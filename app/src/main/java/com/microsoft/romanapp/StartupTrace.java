@@ -0,0 +1,55 @@
+//
+// Copyright (c) Microsoft Corporation. All rights reserved.
+//
+
+package com.microsoft.romanapp;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Times the phases of a cold start from the creation of the Application.
+ *
+ * Each phase is recorded once per process, as the histogram named by the phase constant,
+ * so the values from many starts can be compared in the metrics dump.
+ */
+public final class StartupTrace {
+    private static final String TAG = StartupTrace.class.getName();
+
+    public static final String MAIN_CREATE = "startup.main_create_ms";
+    public static final String PLATFORM_INIT_STARTED = "startup.platform_init_started_ms";
+    public static final String MAIN_CONTENT_SET = "startup.main_content_set_ms";
+    public static final String PLATFORM_INITIALIZED = "startup.platform_initialized_ms";
+    public static final String AUTH_DIALOG_CREATED = "startup.auth_dialog_created_ms";
+    public static final String DEVICE_LIST_CREATED = "startup.device_list_created_ms";
+
+    private static long sStartMs = -1;
+    private static final Set<String> sRecorded = new HashSet<>();
+
+    private StartupTrace() {
+    }
+
+    /**
+     * Called from Application.onCreate, phases are measured from here.
+     */
+    public static synchronized void start() {
+        if (sStartMs < 0) {
+            sStartMs = SystemClock.elapsedRealtime();
+        }
+    }
+
+    /**
+     * Records the time since start at which the phase was reached, unless it was reached before.
+     */
+    public static synchronized void mark(String phase) {
+        if (sStartMs < 0 || !sRecorded.add(phase)) {
+            return;
+        }
+        long elapsedMs = SystemClock.elapsedRealtime() - sStartMs;
+        Metrics.histogram(phase).record(elapsedMs);
+        Log.i(TAG, phase + " at " + elapsedMs + " ms");
+    }
+}
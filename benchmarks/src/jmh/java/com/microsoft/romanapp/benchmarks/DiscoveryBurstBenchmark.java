@@ -0,0 +1,126 @@
+//
+// Copyright (c) Microsoft Corporation. All rights reserved.
+//
+
+package com.microsoft.romanapp.benchmarks;
+
+import com.microsoft.romanapp.core.DeviceRecord;
+import com.microsoft.romanapp.core.DeviceRegistry;
+import com.microsoft.romanapp.core.simulator.SimulatedDevice;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of applying a whole discovery burst to the device list.
+ *
+ * sortPerAdd is the original behaviour (append, then Collections.sort on every add) and has its
+ * own state whose fleet stops at 10000 devices, since it grows as N^2 log N; the registry variants
+ * are the replacement.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class DiscoveryBurstBenchmark {
+
+    @State(Scope.Thread)
+    public static class Baseline {
+        @Param({"10", "100", "1000", "10000"})
+        public int fleetSize;
+
+        List<SimulatedDevice> adds;
+
+        @Setup(Level.Trial)
+        public void createEvents() {
+            adds = Fleet.remoteDevices(fleetSize, 1);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Burst {
+        @Param({"10", "100", "1000", "10000", "50000"})
+        public int fleetSize;
+
+        List<SimulatedDevice> adds;
+        List<SimulatedDevice> updates;
+        List<String> removes;
+        DeviceRegistry<DeviceRecord> populated;
+
+        @Setup(Level.Trial)
+        public void createEvents() {
+            adds = Fleet.remoteDevices(fleetSize, 1);
+            Random random = new Random(2);
+            updates = new ArrayList<>(fleetSize);
+            removes = new ArrayList<>(fleetSize);
+            for (SimulatedDevice device : adds) {
+                // half of the updates rename the device, which moves its row
+                String name = random.nextBoolean() ? device.getDisplayName() : "RENAMED-" + random.nextInt();
+                updates.add(new SimulatedDevice(device.getId(), name, device.getKind(), !device.isAvailableByProximity()));
+                removes.add(device.getId());
+            }
+            Collections.shuffle(updates, random);
+            Collections.shuffle(removes, random);
+        }
+
+        @Setup(Level.Invocation)
+        public void populate() {
+            populated = new DeviceRegistry<>();
+            for (SimulatedDevice device : adds) {
+                populated.add(new DeviceRecord(device));
+            }
+        }
+    }
+
+    @Benchmark
+    public List<DeviceRecord> sortPerAdd(Baseline baseline) {
+        List<DeviceRecord> devices = new ArrayList<>();
+        for (SimulatedDevice device : baseline.adds) {
+            devices.add(new DeviceRecord(device));
+            Collections.sort(devices, DeviceRegistry.NAME_ORDER);
+        }
+        return devices;
+    }
+
+    @Benchmark
+    public DeviceRegistry<DeviceRecord> registryAdd(Burst burst) {
+        DeviceRegistry<DeviceRecord> registry = new DeviceRegistry<>();
+        for (SimulatedDevice device : burst.adds) {
+            registry.add(new DeviceRecord(device));
+        }
+        return registry;
+    }
+
+    @Benchmark
+    public DeviceRegistry<DeviceRecord> registryUpdate(Burst burst) {
+        for (SimulatedDevice device : burst.updates) {
+            burst.populated.update(new DeviceRecord(device));
+        }
+        return burst.populated;
+    }
+
+    @Benchmark
+    public DeviceRegistry<DeviceRecord> registryRemove(Burst burst) {
+        for (String id : burst.removes) {
+            burst.populated.remove(id);
+        }
+        return burst.populated;
+    }
+}
@@ -0,0 +1,88 @@
+//
+// Copyright (c) Microsoft Corporation. All rights reserved.
+//
+
+package com.microsoft.romanapp.benchmarks;
+
+import com.microsoft.romanapp.core.DeviceFacets;
+import com.microsoft.romanapp.core.DeviceQuery;
+import com.microsoft.romanapp.core.DeviceRecord;
+import com.microsoft.romanapp.core.DeviceRegistry;
+import com.microsoft.romanapp.core.DiscoveryType;
+import com.microsoft.romanapp.core.SystemKind;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of evaluating the kind/type filters, per device and as a full filter change on the registry,
+ * against selecting the candidates and counting the spinner options with the facet bitmaps.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class FilterBenchmark {
+
+    @Param({"10", "100", "1000", "10000", "50000"})
+    public int fleetSize;
+
+    @Param({"ALL", "PROXIMAL"})
+    public DiscoveryType discoveryType;
+
+    @Param({"ALL", "DESKTOP"})
+    public SystemKind systemKind;
+
+    private List<DeviceRecord> devices;
+    private DeviceRegistry<DeviceRecord> registry;
+    private DeviceQuery query;
+
+    @Setup
+    public void createFleet() {
+        devices = Fleet.records(fleetSize, 1);
+        registry = new DeviceRegistry<>();
+        for (DeviceRecord device : devices) {
+            registry.add(device);
+        }
+        query = new DeviceQuery(discoveryType, systemKind);
+    }
+
+    @Benchmark
+    public void evaluate(Blackhole blackhole) {
+        for (DeviceRecord device : devices) {
+            blackhole.consume(query.matches(device));
+        }
+    }
+
+    @Benchmark
+    public int applyToRegistry() {
+        registry.setFilter(query);
+        return registry.size();
+    }
+
+    @Benchmark
+    public int applyFromFacets() {
+        registry.setFilter(query, registry.getFacets().select(query));
+        return registry.size();
+    }
+
+    @Benchmark
+    public DeviceFacets.Counts countFacets() {
+        return registry.getFacets().count(query);
+    }
+}
@@ -0,0 +1,43 @@
+//
+// Copyright (c) Microsoft Corporation. All rights reserved.
+//
+
+package com.microsoft.romanapp.benchmarks;
+
+import com.microsoft.romanapp.core.DeviceKind;
+import com.microsoft.romanapp.core.DeviceRecord;
+import com.microsoft.romanapp.core.simulator.SimulatedDevice;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic synthetic fleets for the benchmarks.
+ */
+final class Fleet {
+    private static final String[] PREFIXES = {"DESKTOP-", "LAPTOP-", "SURFACE-", "XBOX-", "PHONE-", "HOLOLENS-"};
+
+    private Fleet() {
+    }
+
+    static List<SimulatedDevice> remoteDevices(int size, long seed) {
+        Random random = new Random(seed);
+        DeviceKind[] kinds = DeviceKind.values();
+        List<SimulatedDevice> devices = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            // random names, so arrival order is unrelated to sort order as on a real network
+            String name = PREFIXES[random.nextInt(PREFIXES.length)] + Integer.toHexString(random.nextInt());
+            devices.add(new SimulatedDevice("id-" + i, name, kinds[random.nextInt(kinds.length)], random.nextBoolean()));
+        }
+        return devices;
+    }
+
+    static List<DeviceRecord> records(int size, long seed) {
+        List<DeviceRecord> records = new ArrayList<>(size);
+        for (SimulatedDevice device : remoteDevices(size, seed)) {
+            records.add(new DeviceRecord(device));
+        }
+        return records;
+    }
+}
@@ -0,0 +1,73 @@
+//
+// Copyright (c) Microsoft Corporation. All rights reserved.
+//
+
+package com.microsoft.romanapp.benchmarks;
+
+import com.microsoft.romanapp.core.Clock;
+import com.microsoft.romanapp.core.HandleStore;
+import com.microsoft.romanapp.core.simulator.SimulatedDevice;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the storage half of a Device parcel round trip: writeToParcel puts the handle,
+ * Device.CREATOR gets it back. Parcel itself is Android only and not measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class HandleStoreBenchmark {
+
+    // the same bound and expiry as DeviceStorage
+    private static final int MAX_ENTRIES = 256;
+    private static final long TTL_MS = 10 * 60 * 1000;
+
+    @Param({"10", "100", "1000", "10000", "50000"})
+    public int fleetSize;
+
+    private List<SimulatedDevice> devices;
+    private HandleStore<SimulatedDevice> store;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next = 0;
+    }
+
+    @Setup
+    public void createFleet() {
+        devices = Fleet.remoteDevices(fleetSize, 1);
+        store = new HandleStore<>(MAX_ENTRIES, TTL_MS, Clock.SYSTEM);
+    }
+
+    @Benchmark
+    public SimulatedDevice roundTrip(Cursor cursor) {
+        SimulatedDevice device = devices.get(cursor.next);
+        cursor.next = (cursor.next + 1) % devices.size();
+        store.put(device.getId(), device);
+        return store.get(device.getId());
+    }
+
+    @Benchmark
+    @Threads(4)
+    public SimulatedDevice contendedRoundTrip(Cursor cursor) {
+        return roundTrip(cursor);
+    }
+}
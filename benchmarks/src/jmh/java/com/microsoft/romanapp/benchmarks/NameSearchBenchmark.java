@@ -0,0 +1,71 @@
+//
+// Copyright (c) Microsoft Corporation. All rights reserved.
+//
+
+package com.microsoft.romanapp.benchmarks;
+
+import com.microsoft.romanapp.core.DeviceNameIndex;
+import com.microsoft.romanapp.core.simulator.SimulatedDevice;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of a search box query, through the index and by matching every name.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class NameSearchBenchmark {
+
+    @Param({"10", "100", "1000", "10000", "50000"})
+    public int fleetSize;
+
+    // a short prefix, a typo and a two term query
+    @Param({"x", "deks", "laptop 4"})
+    public String query;
+
+    private List<SimulatedDevice> devices;
+    private DeviceNameIndex index;
+
+    @Setup
+    public void createFleet() {
+        devices = Fleet.remoteDevices(fleetSize, 1);
+        index = new DeviceNameIndex();
+        for (SimulatedDevice device : devices) {
+            index.put(device.getId(), device.getDisplayName());
+        }
+    }
+
+    @Benchmark
+    public Set<String> indexSearch() {
+        return index.search(query);
+    }
+
+    @Benchmark
+    public int scanAll() {
+        int count = 0;
+        for (SimulatedDevice device : devices) {
+            if (DeviceNameIndex.matches(device.getDisplayName(), query)) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
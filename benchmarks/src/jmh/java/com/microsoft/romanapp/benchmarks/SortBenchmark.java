@@ -0,0 +1,54 @@
+//
+// Copyright (c) Microsoft Corporation. All rights reserved.
+//
+
+package com.microsoft.romanapp.benchmarks;
+
+import com.microsoft.romanapp.core.DeviceRecord;
+import com.microsoft.romanapp.core.DeviceRegistry;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one full sort of the device list by name.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class SortBenchmark {
+
+    @Param({"10", "100", "1000", "10000", "50000"})
+    public int fleetSize;
+
+    private List<DeviceRecord> devices;
+
+    @Setup
+    public void createFleet() {
+        devices = Fleet.records(fleetSize, 1);
+    }
+
+    @Benchmark
+    public List<DeviceRecord> sortByName() {
+        List<DeviceRecord> copy = new ArrayList<>(devices);
+        Collections.sort(copy, DeviceRegistry.NAME_ORDER);
+        return copy;
+    }
+}
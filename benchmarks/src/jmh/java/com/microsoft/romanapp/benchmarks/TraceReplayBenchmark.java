@@ -0,0 +1,125 @@
+//
+// Copyright (c) Microsoft Corporation. All rights reserved.
+//
+
+package com.microsoft.romanapp.benchmarks;
+
+import com.microsoft.romanapp.core.DeviceChanges;
+import com.microsoft.romanapp.core.DeviceNameIndex;
+import com.microsoft.romanapp.core.DeviceRecord;
+import com.microsoft.romanapp.core.DeviceRegistry;
+import com.microsoft.romanapp.core.DiscoveryListener;
+import com.microsoft.romanapp.core.RemoteDevice;
+import com.microsoft.romanapp.core.simulator.SimulatedDevice;
+import com.microsoft.romanapp.core.trace.TraceReader;
+import com.microsoft.romanapp.core.trace.TraceReplayer;
+import com.microsoft.romanapp.core.trace.TraceWriter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of applying a recorded discovery trace to the device list, as the discovery worker does:
+ * registry, name index and row changes. Events are delivered back to back.
+ *
+ * Replay a trace recorded on a device (Metrics screen, "Record trace") with:
+ * ./gradlew :benchmarks:jmh -Pjmh.include=TraceReplay -Pjmh.trace=/path/to/discovery.trace
+ * Without a trace file a synthetic one is generated from the simulator fleet.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class TraceReplayBenchmark {
+
+    @Param({""})
+    public String traceFile;
+
+    // size of the synthetic fleet, unused with a trace file, for which build.gradle passes a single 0
+    @Param({"1000", "10000"})
+    public int syntheticFleetSize;
+
+    private byte[] trace;
+
+    @Setup(Level.Trial)
+    public void loadTrace() throws IOException {
+        if (!traceFile.isEmpty()) {
+            trace = Files.readAllBytes(Paths.get(traceFile));
+            return;
+        }
+        // every device is added, then a random mix of updates, removals and returns follows
+        List<SimulatedDevice> fleet = Fleet.remoteDevices(syntheticFleetSize, 1);
+        Random random = new Random(3);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        TraceWriter writer = new TraceWriter(bytes);
+        for (SimulatedDevice device : fleet) {
+            writer.added(device);
+        }
+        for (int i = 0; i < syntheticFleetSize * 2; i++) {
+            SimulatedDevice device = fleet.get(random.nextInt(fleet.size()));
+            switch (random.nextInt(4)) {
+                case 0:
+                    writer.removed(device.getId());
+                    break;
+                case 1:
+                    writer.added(device);
+                    break;
+                default:
+                    writer.updated(new SimulatedDevice(device.getId(), device.getDisplayName(), device.getKind(),
+                            random.nextBoolean()));
+                    break;
+            }
+        }
+        writer.close();
+        trace = bytes.toByteArray();
+    }
+
+    @Benchmark
+    public int replay() throws IOException, InterruptedException {
+        final DeviceRegistry<DeviceRecord> registry = new DeviceRegistry<>();
+        final DeviceNameIndex nameIndex = new DeviceNameIndex();
+        registry.setCallback(new DeviceChanges());
+        TraceReader reader = new TraceReader(new ByteArrayInputStream(trace));
+        new TraceReplayer(reader, 0).replay(new DiscoveryListener() {
+            @Override
+            public void onDeviceAdded(RemoteDevice device) {
+                registry.add(new DeviceRecord(device));
+                nameIndex.put(device.getId(), device.getDisplayName());
+            }
+
+            @Override
+            public void onDeviceUpdated(RemoteDevice device) {
+                registry.update(new DeviceRecord(device));
+                nameIndex.put(device.getId(), device.getDisplayName());
+            }
+
+            @Override
+            public void onDeviceRemoved(String id) {
+                registry.remove(id);
+                nameIndex.remove(id);
+            }
+        });
+        return registry.totalSize();
+    }
+}
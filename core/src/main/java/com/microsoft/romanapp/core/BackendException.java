@@ -0,0 +1,20 @@
+//
+// Copyright (c) Microsoft Corporation. All rights reserved.
+//
+
+package com.microsoft.romanapp.core;
+
+/**
+ * Thrown when a backend cannot start discovery or a launch, wraps the SDK's ConnectedDevicesException.
+ */
+public class BackendException extends Exception {
+    private static final long serialVersionUID = 1L;
+
+    public BackendException(String message) {
+        super(message);
+    }
+
+    public BackendException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
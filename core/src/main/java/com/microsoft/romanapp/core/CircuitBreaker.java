@@ -0,0 +1,132 @@
+//
+// Copyright (c) Microsoft Corporation. All rights reserved.
+//
+
+package com.microsoft.romanapp.core;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Per device circuit breaker for launches.
+ *
+ * A device is CLOSED while it answers. After failureThreshold consecutive failures it is OPEN
+ * and launches to it fail fast for openMs. Then it is HALF_OPEN: a single trial launch is let
+ * through, and its outcome closes the circuit again or opens it for another openMs.
+ * All methods are thread safe.
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private static final class Circuit {
+        State state = State.CLOSED;
+        int failures = 0;
+        long openedAt = 0;
+        boolean trialInFlight = false;
+    }
+
+    private final int failureThreshold;
+    private final long openMs;
+    private final Clock clock;
+    private final Map<String, Circuit> circuits = new HashMap<>();
+
+    public CircuitBreaker(int failureThreshold, long openMs, Clock clock) {
+        if (failureThreshold < 1) {
+            throw new IllegalArgumentException("failureThreshold must be at least 1");
+        }
+        this.failureThreshold = failureThreshold;
+        this.openMs = openMs;
+        this.clock = clock;
+    }
+
+    /**
+     * Tells whether a launch to the device may go ahead. In the HALF_OPEN state only the first
+     * caller is allowed, and it must report the outcome with onSuccess or onFailure.
+     */
+    public synchronized boolean allow(String id) {
+        Circuit circuit = circuits.get(id);
+        if (circuit == null) {
+            return true;
+        }
+        switch (refresh(circuit)) {
+            case OPEN:
+                return false;
+            case HALF_OPEN:
+                if (circuit.trialInFlight) {
+                    return false;
+                }
+                circuit.trialInFlight = true;
+                return true;
+            default:
+                return true;
+        }
+    }
+
+    /**
+     * Records that the device answered, returns the new state.
+     */
+    public synchronized State onSuccess(String id) {
+        // a closed circuit with no failures is the same as no circuit
+        circuits.remove(id);
+        return State.CLOSED;
+    }
+
+    /**
+     * Records that the device could not be reached, returns the new state.
+     */
+    public synchronized State onFailure(String id) {
+        Circuit circuit = circuits.get(id);
+        if (circuit == null) {
+            circuit = new Circuit();
+            circuits.put(id, circuit);
+        }
+        circuit.failures++;
+        if (refresh(circuit) == State.HALF_OPEN || circuit.failures >= failureThreshold) {
+            circuit.state = State.OPEN;
+            circuit.openedAt = clock.now();
+            circuit.trialInFlight = false;
+        }
+        return circuit.state;
+    }
+
+    public synchronized State getState(String id) {
+        Circuit circuit = circuits.get(id);
+        return circuit == null ? State.CLOSED : refresh(circuit);
+    }
+
+    public synchronized int getFailures(String id) {
+        Circuit circuit = circuits.get(id);
+        return circuit == null ? 0 : circuit.failures;
+    }
+
+    /**
+     * Milliseconds until an OPEN circuit lets a trial launch through, 0 if it is not OPEN.
+     */
+    public synchronized long getRemainingOpenMs(String id) {
+        Circuit circuit = circuits.get(id);
+        if (circuit == null || refresh(circuit) != State.OPEN) {
+            return 0;
+        }
+        return circuit.openedAt + openMs - clock.now();
+    }
+
+    /**
+     * Forgets the device, for example when discovery reports it gone.
+     */
+    public synchronized void reset(String id) {
+        circuits.remove(id);
+    }
+
+    private State refresh(Circuit circuit) {
+        if (circuit.state == State.OPEN && clock.now() - circuit.openedAt >= openMs) {
+            circuit.state = State.HALF_OPEN;
+            circuit.trialInFlight = false;
+        }
+        return circuit.state;
+    }
+}
@@ -0,0 +1,154 @@
+//
+// Copyright (c) Microsoft Corporation. All rights reserved.
+//
+
+package com.microsoft.romanapp.core;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Launches through another backend, sharing one launch among identical requests.
+ *
+ * A launch of a URI on a device that is already launching that URI does not start another
+ * call, it waits for the running one and receives the same status. A launch that repeats
+ * a successful one within the suppression window completes at once with SUCCESS, so a
+ * double tap does not open the URI twice on the device. All methods are thread safe.
+ */
+public class DedupingLaunchBackend implements LaunchBackend {
+
+    public interface Listener {
+        /**
+         * The launch joined an identical one in flight, there are now the given number of callers waiting.
+         */
+        void onJoined(RemoteDevice device, String uri, int waiting);
+
+        /**
+         * The launch repeated a successful one from the given milliseconds ago and was not started.
+         */
+        void onSuppressed(RemoteDevice device, String uri, long sinceMs);
+    }
+
+    private final LaunchBackend backend;
+    private final long suppressWindowMs;
+    private final Clock clock;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    // Guarded by this: callers waiting per launch key, and the completion time of recent successes in order
+    private final Map<String, List<LaunchCallback>> inFlight = new HashMap<>();
+    private final LinkedHashMap<String, Long> recentSuccesses = new LinkedHashMap<>();
+
+    /**
+     * A suppression window of 0 only shares launches that are in flight at the same time.
+     */
+    public DedupingLaunchBackend(LaunchBackend backend, long suppressWindowMs, Clock clock) {
+        this.backend = backend;
+        this.suppressWindowMs = suppressWindowMs;
+        this.clock = clock;
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Number of distinct launches currently running.
+     */
+    public synchronized int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    @Override
+    public void launchUri(RemoteDevice device, String uri, LaunchCallback callback) throws BackendException {
+        final String key = device.getId() + '\n' + uri;
+        long sinceMs = -1;
+        int waiting = 0;
+        synchronized (this) {
+            pruneRecentSuccesses();
+            Long completedAt = recentSuccesses.get(key);
+            List<LaunchCallback> waiters = inFlight.get(key);
+            if (completedAt != null) {
+                sinceMs = clock.now() - completedAt;
+            } else if (waiters != null) {
+                waiters.add(callback);
+                waiting = waiters.size();
+            } else {
+                waiters = new ArrayList<>(1);
+                waiters.add(callback);
+                inFlight.put(key, waiters);
+            }
+        }
+        if (sinceMs >= 0) {
+            for (Listener listener : listeners) {
+                listener.onSuppressed(device, uri, sinceMs);
+            }
+            callback.onCompleted(LaunchStatus.SUCCESS);
+            return;
+        }
+        if (waiting > 0) {
+            for (Listener listener : listeners) {
+                listener.onJoined(device, uri, waiting);
+            }
+            return;
+        }
+
+        try {
+            backend.launchUri(device, uri, new LaunchCallback() {
+                @Override
+                public void onCompleted(LaunchStatus status) {
+                    complete(key, status);
+                }
+            });
+        } catch (BackendException e) {
+            // the callers that joined meanwhile fail the same way
+            List<LaunchCallback> waiters;
+            synchronized (this) {
+                waiters = inFlight.remove(key);
+            }
+            for (LaunchCallback waiter : waiters != null ? waiters : new ArrayList<LaunchCallback>()) {
+                if (waiter != callback) {
+                    waiter.onCompleted(LaunchStatus.UNKNOWN);
+                }
+            }
+            throw e;
+        }
+    }
+
+    private void complete(String key, LaunchStatus status) {
+        List<LaunchCallback> waiters;
+        synchronized (this) {
+            waiters = inFlight.remove(key);
+            if (status == LaunchStatus.SUCCESS && suppressWindowMs > 0) {
+                recentSuccesses.remove(key);
+                recentSuccesses.put(key, clock.now());
+            }
+        }
+        if (waiters == null) {
+            return;
+        }
+        for (LaunchCallback waiter : waiters) {
+            waiter.onCompleted(status);
+        }
+    }
+
+    // Entries are in completion order, so the expired ones are at the head
+    private void pruneRecentSuccesses() {
+        long now = clock.now();
+        Iterator<Long> it = recentSuccesses.values().iterator();
+        while (it.hasNext()) {
+            if (now - it.next() < suppressWindowMs) {
+                break;
+            }
+            it.remove();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+//
+// Copyright (c) Microsoft Corporation. All rights reserved.
+//
+
+package com.microsoft.romanapp.core;
+
+import java.util.Arrays;
+
+/**
+ * Records the row changes of a DeviceRegistry so they can be replayed later on another thread,
+ * together with the snapshot taken after them. Long batches collapse into a single reset,
+ * which is cheaper for a list to apply than thousands of single row notifications.
+ */
+public class DeviceChanges implements DeviceRegistry.Callback {
+    public static final int MAX_CHANGES = 256;
+
+    private static final int INSERTED = 0;
+    private static final int CHANGED = 1;
+    private static final int MOVED = 2;
+    private static final int REMOVED = 3;
+
+    // three ints per change: type, position, second position for moves
+    private int[] changes = new int[3 * 16];
+    private int count = 0;
+    private boolean reset = false;
+
+    @Override
+    public void onInserted(int position) {
+        add(INSERTED, position, 0);
+    }
+
+    @Override
+    public void onChanged(int position) {
+        add(CHANGED, position, 0);
+    }
+
+    @Override
+    public void onMoved(int fromPosition, int toPosition) {
+        add(MOVED, fromPosition, toPosition);
+    }
+
+    @Override
+    public void onRemoved(int position) {
+        add(REMOVED, position, 0);
+    }
+
+    @Override
+    public void onReset() {
+        reset = true;
+        count = 0;
+    }
+
+    public boolean isEmpty() {
+        return !reset && count == 0;
+    }
+
+    public boolean isReset() {
+        return reset;
+    }
+
+    /**
+     * Replays the recorded changes in order, or a single reset.
+     */
+    public void dispatchTo(DeviceRegistry.Callback callback) {
+        if (reset) {
+            callback.onReset();
+            return;
+        }
+        for (int i = 0; i < count; i++) {
+            int position = changes[3 * i + 1];
+            switch (changes[3 * i]) {
+                case INSERTED:
+                    callback.onInserted(position);
+                    break;
+                case CHANGED:
+                    callback.onChanged(position);
+                    break;
+                case MOVED:
+                    callback.onMoved(position, changes[3 * i + 2]);
+                    break;
+                default:
+                    callback.onRemoved(position);
+                    break;
+            }
+        }
+    }
+
+    private void add(int type, int position, int toPosition) {
+        if (reset) {
+            return;
+        }
+        if (count == MAX_CHANGES) {
+            onReset();
+            return;
+        }
+        if (3 * count == changes.length) {
+            changes = Arrays.copyOf(changes, changes.length * 2);
+        }
+        changes[3 * count] = type;
+        changes[3 * count + 1] = position;
+        changes[3 * count + 2] = toPosition;
+        count++;
+    }
+}
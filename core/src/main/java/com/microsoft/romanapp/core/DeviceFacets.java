@@ -0,0 +1,272 @@
+//
+// Copyright (c) Microsoft Corporation. All rights reserved.
+//
+
+package com.microsoft.romanapp.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Bitmap index over the facets the device list is filtered by: kind, transport,
+ * availability and whether the name matches the current search text.
+ *
+ * Every device owns a slot, and each facet value is a BitSet with one bit per slot, updated
+ * as devices come and go. A query is the AND of one set per facet, where the kind set is the
+ * OR of the wanted kinds, so filtering costs O(slots / 64) words instead of a pass over the
+ * devices. Slots of removed devices are reused. Not thread safe.
+ */
+public class DeviceFacets {
+    private static final DeviceKind[] KINDS = DeviceKind.values();
+
+    /**
+     * Number of devices per spinner option. An option is counted together with the current
+     * selection of the other spinners and the search text, so it tells how many rows
+     * would be shown after picking it.
+     */
+    public static final class Counts {
+        public static final Counts EMPTY = new Counts(new int[DiscoveryType.values().length],
+                new int[SystemKind.values().length], new int[StatusType.values().length]);
+
+        private final int[] byDiscoveryType;
+        private final int[] bySystemKind;
+        private final int[] byStatus;
+
+        Counts(int[] byDiscoveryType, int[] bySystemKind, int[] byStatus) {
+            this.byDiscoveryType = byDiscoveryType;
+            this.bySystemKind = bySystemKind;
+            this.byStatus = byStatus;
+        }
+
+        public int get(DiscoveryType discoveryType) {
+            return byDiscoveryType[discoveryType.ordinal()];
+        }
+
+        public int get(SystemKind systemKind) {
+            return bySystemKind[systemKind.ordinal()];
+        }
+
+        public int get(StatusType status) {
+            return byStatus[status.ordinal()];
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Counts)) {
+                return false;
+            }
+            Counts other = (Counts) o;
+            return Arrays.equals(byDiscoveryType, other.byDiscoveryType)
+                    && Arrays.equals(bySystemKind, other.bySystemKind)
+                    && Arrays.equals(byStatus, other.byStatus);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * Arrays.hashCode(byDiscoveryType) + Arrays.hashCode(bySystemKind))
+                    + Arrays.hashCode(byStatus);
+        }
+    }
+
+    private final Map<String, Integer> slotsById = new HashMap<>();
+    private final List<String> idsBySlot = new ArrayList<>();
+    // slots of removed devices, reused before the index grows
+    private final BitSet free = new BitSet();
+
+    private final BitSet present = new BitSet();
+    private final BitSet proximal = new BitSet();
+    private final BitSet available = new BitSet();
+    private final BitSet[] kinds = new BitSet[KINDS.length];
+    // devices whose name matches nameQuery, unused while it is empty
+    private final BitSet named = new BitSet();
+    private String nameQuery = "";
+
+    // reused by the queries
+    private final BitSet selection = new BitSet();
+    private final BitSet scratch = new BitSet();
+
+    public DeviceFacets() {
+        for (int i = 0; i < kinds.length; i++) {
+            kinds[i] = new BitSet();
+        }
+    }
+
+    /**
+     * Indexes a new device or the new state of a known one.
+     */
+    public void put(DeviceRecord device) {
+        Integer existing = slotsById.get(device.getId());
+        int slot;
+        if (existing != null) {
+            slot = existing;
+        } else {
+            slot = free.nextSetBit(0);
+            if (slot < 0) {
+                slot = idsBySlot.size();
+                idsBySlot.add(device.getId());
+            } else {
+                free.clear(slot);
+                idsBySlot.set(slot, device.getId());
+            }
+            slotsById.put(device.getId(), slot);
+            present.set(slot);
+        }
+        proximal.set(slot, device.getIsAvailableByProximity());
+        available.set(slot, device.isAvailable());
+        for (int i = 0; i < kinds.length; i++) {
+            kinds[i].set(slot, device.getKind() == KINDS[i]);
+        }
+        if (!nameQuery.isEmpty()) {
+            named.set(slot, DeviceNameIndex.matches(device.getName(), nameQuery));
+        }
+    }
+
+    public void remove(String id) {
+        Integer slot = slotsById.remove(id);
+        if (slot == null) {
+            return;
+        }
+        idsBySlot.set(slot, null);
+        free.set(slot);
+        present.clear(slot);
+        proximal.clear(slot);
+        available.clear(slot);
+        named.clear(slot);
+        for (BitSet kind : kinds) {
+            kind.clear(slot);
+        }
+    }
+
+    public void clear() {
+        slotsById.clear();
+        idsBySlot.clear();
+        free.clear();
+        present.clear();
+        proximal.clear();
+        available.clear();
+        named.clear();
+        for (BitSet kind : kinds) {
+            kind.clear();
+        }
+    }
+
+    public int size() {
+        return slotsById.size();
+    }
+
+    /**
+     * Sets the search text the name facet follows, with the ids of the indexed devices whose
+     * names match it, as found by DeviceNameIndex.search. Devices put later are matched one by one.
+     */
+    public void setNameQuery(String nameQuery, Collection<String> matchingIds) {
+        this.nameQuery = nameQuery.trim();
+        named.clear();
+        if (this.nameQuery.isEmpty()) {
+            return;
+        }
+        for (String id : matchingIds) {
+            Integer slot = slotsById.get(id);
+            if (slot != null) {
+                named.set(slot);
+            }
+        }
+    }
+
+    public String getNameQuery() {
+        return nameQuery;
+    }
+
+    /**
+     * Returns the ids of the devices that match the query, in no particular order.
+     * The name facet must have been set to the query's name text.
+     */
+    public List<String> select(DeviceQuery query) {
+        select(query.getDiscoveryType(), kindsOf(query), query.getStatus());
+        List<String> ids = new ArrayList<>(selection.cardinality());
+        for (int slot = selection.nextSetBit(0); slot >= 0; slot = selection.nextSetBit(slot + 1)) {
+            ids.add(idsBySlot.get(slot));
+        }
+        return ids;
+    }
+
+    /**
+     * Counts the devices behind every spinner option, given the current query.
+     */
+    public Counts count(DeviceQuery query) {
+        BitSet type = discoveryTypeBits(query.getDiscoveryType());
+        BitSet status = statusBits(query.getStatus());
+
+        int[] byDiscoveryType = new int[DiscoveryType.values().length];
+        for (DiscoveryType option : DiscoveryType.values()) {
+            select(option, kindsOf(query), query.getStatus());
+            byDiscoveryType[option.ordinal()] = selection.cardinality();
+        }
+
+        // the other facets only need to be combined once for all the kinds
+        selection.clear();
+        selection.or(type);
+        selection.and(status);
+        andName(selection);
+        int[] bySystemKind = new int[SystemKind.values().length];
+        for (SystemKind option : SystemKind.values()) {
+            DeviceKind kind = option.toDeviceKind();
+            if (kind == null) {
+                bySystemKind[option.ordinal()] = selection.cardinality();
+            } else {
+                scratch.clear();
+                scratch.or(selection);
+                scratch.and(kinds[kind.ordinal()]);
+                bySystemKind[option.ordinal()] = scratch.cardinality();
+            }
+        }
+
+        int[] byStatus = new int[StatusType.values().length];
+        for (StatusType option : StatusType.values()) {
+            select(query.getDiscoveryType(), kindsOf(query), option);
+            byStatus[option.ordinal()] = selection.cardinality();
+        }
+        return new Counts(byDiscoveryType, bySystemKind, byStatus);
+    }
+
+    // Leaves the matching slots in selection, a null kinds set matches every kind
+    private void select(DiscoveryType discoveryType, Set<DeviceKind> wantedKinds, StatusType status) {
+        selection.clear();
+        if (wantedKinds == null) {
+            selection.or(present);
+        } else {
+            for (DeviceKind kind : wantedKinds) {
+                selection.or(kinds[kind.ordinal()]);
+            }
+        }
+        selection.and(discoveryTypeBits(discoveryType));
+        selection.and(statusBits(status));
+        andName(selection);
+    }
+
+    private static Set<DeviceKind> kindsOf(DeviceQuery query) {
+        return query.getKind() == null ? null : EnumSet.of(query.getKind());
+    }
+
+    private void andName(BitSet bits) {
+        if (!nameQuery.isEmpty()) {
+            bits.and(named);
+        }
+    }
+
+    private BitSet discoveryTypeBits(DiscoveryType discoveryType) {
+        // every discovered system is reachable through the cloud,
+        // only some are also available by proximity
+        return discoveryType == DiscoveryType.PROXIMAL ? proximal : present;
+    }
+
+    private BitSet statusBits(StatusType status) {
+        return status == StatusType.AVAILABLE ? available : present;
+    }
+}
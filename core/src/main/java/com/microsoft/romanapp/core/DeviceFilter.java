@@ -0,0 +1,19 @@
+//
+// Copyright (c) Microsoft Corporation. All rights reserved.
+//
+
+package com.microsoft.romanapp.core;
+
+/**
+ * Decides which discovered devices are shown.
+ */
+public interface DeviceFilter {
+    DeviceFilter ALL = new DeviceFilter() {
+        @Override
+        public boolean matches(DeviceRecord device) {
+            return true;
+        }
+    };
+
+    boolean matches(DeviceRecord device);
+}
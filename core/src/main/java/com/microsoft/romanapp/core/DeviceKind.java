@@ -0,0 +1,28 @@
+//
+// Copyright (c) Microsoft Corporation. All rights reserved.
+//
+
+package com.microsoft.romanapp.core;
+
+/**
+ * Kinds of remote systems, mirrors the connected devices RemoteSystemKind.
+ */
+public enum DeviceKind {
+    UNKNOWN,
+    DESKTOP,
+    HOLOGRAPHIC,
+    PHONE,
+    XBOX;
+
+    /**
+     * Maps a kind by name, unknown names map to UNKNOWN.
+     */
+    public static DeviceKind fromName(String name) {
+        for (DeviceKind kind : values()) {
+            if (kind.name().equals(name)) {
+                return kind;
+            }
+        }
+        return UNKNOWN;
+    }
+}
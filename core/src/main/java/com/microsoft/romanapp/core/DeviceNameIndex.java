@@ -0,0 +1,297 @@
+//
+// Copyright (c) Microsoft Corporation. All rights reserved.
+//
+
+package com.microsoft.romanapp.core;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Prefix index over device names, kept up to date one device at a time.
+ *
+ * A name is split into lower case tokens at every character that is not a letter or digit,
+ * plus one token of all its letters and digits, so "DESKTOP-1A2B" is found by "desk", "1a"
+ * and "desktop1". A query is split the same way and a device matches when every query term
+ * is a prefix of one of its tokens. Terms of MIN_FUZZY_LENGTH or more characters may be one
+ * edit away from the prefix, so "deks" still finds "desktop".
+ *
+ * The tokens live in a trie, a search only walks the branches that are within one edit
+ * of the term and the subtrees under the matching prefixes. Not thread safe.
+ */
+public class DeviceNameIndex {
+    public static final int MIN_FUZZY_LENGTH = 4;
+
+    private static final class Node {
+        char[] keys = new char[0];
+        Node[] children = new Node[0];
+        // ids of the devices with a token ending at this node
+        List<String> ids = null;
+
+        Node child(char key) {
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] == key) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+
+        Node addChild(char key) {
+            int count = keys.length;
+            char[] newKeys = new char[count + 1];
+            Node[] newChildren = new Node[count + 1];
+            System.arraycopy(keys, 0, newKeys, 0, count);
+            System.arraycopy(children, 0, newChildren, 0, count);
+            newKeys[count] = key;
+            newChildren[count] = new Node();
+            keys = newKeys;
+            children = newChildren;
+            return newChildren[count];
+        }
+
+        void removeChild(char key) {
+            int count = keys.length;
+            for (int i = 0; i < count; i++) {
+                if (keys[i] == key) {
+                    char[] newKeys = new char[count - 1];
+                    Node[] newChildren = new Node[count - 1];
+                    System.arraycopy(keys, 0, newKeys, 0, i);
+                    System.arraycopy(children, 0, newChildren, 0, i);
+                    System.arraycopy(keys, i + 1, newKeys, i, count - i - 1);
+                    System.arraycopy(children, i + 1, newChildren, i, count - i - 1);
+                    keys = newKeys;
+                    children = newChildren;
+                    return;
+                }
+            }
+        }
+
+        boolean isEmpty() {
+            return keys.length == 0 && (ids == null || ids.isEmpty());
+        }
+    }
+
+    private final Node root = new Node();
+    private final Map<String, String> namesById = new HashMap<>();
+    private final Map<String, List<String>> tokensById = new HashMap<>();
+
+    /**
+     * Indexes the device under its current name, replacing any earlier name.
+     */
+    public void put(String id, String name) {
+        String indexed = namesById.get(id);
+        if (name.equals(indexed)) {
+            return;
+        }
+        if (indexed != null) {
+            remove(id);
+        }
+        List<String> tokens = tokenize(name, true);
+        for (String token : tokens) {
+            Node node = root;
+            for (int i = 0; i < token.length(); i++) {
+                Node child = node.child(token.charAt(i));
+                node = child != null ? child : node.addChild(token.charAt(i));
+            }
+            if (node.ids == null) {
+                node.ids = new ArrayList<>(1);
+            }
+            node.ids.add(id);
+        }
+        namesById.put(id, name);
+        tokensById.put(id, tokens);
+    }
+
+    public void remove(String id) {
+        namesById.remove(id);
+        List<String> tokens = tokensById.remove(id);
+        if (tokens == null) {
+            return;
+        }
+        for (String token : tokens) {
+            removeToken(root, token, 0, id);
+        }
+    }
+
+    public void clear() {
+        root.keys = new char[0];
+        root.children = new Node[0];
+        root.ids = null;
+        namesById.clear();
+        tokensById.clear();
+    }
+
+    public int size() {
+        return namesById.size();
+    }
+
+    /**
+     * Returns the ids of the devices whose name matches every term of the query.
+     * An empty query matches every device.
+     */
+    public Set<String> search(String query) {
+        List<String> terms = tokenize(query, false);
+        if (terms.isEmpty()) {
+            return new HashSet<>(namesById.keySet());
+        }
+        Set<String> result = null;
+        for (String term : terms) {
+            Set<String> ids = new HashSet<>();
+            int[] row = new int[term.length() + 1];
+            for (int i = 0; i < row.length; i++) {
+                row[i] = i;
+            }
+            collect(root, term, row, maxEdits(term), ids);
+            if (result == null) {
+                result = ids;
+            } else {
+                result.retainAll(ids);
+            }
+            if (result.isEmpty()) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Tells whether a name matches the query, by the same rules as search but without an index.
+     */
+    public static boolean matches(String name, String query) {
+        List<String> tokens = null;
+        for (String term : tokenize(query, false)) {
+            if (tokens == null) {
+                tokens = tokenize(name, true);
+            }
+            boolean found = false;
+            for (String token : tokens) {
+                if (isPrefixWithin(term, token, maxEdits(term))) {
+                    found = true;
+                    break;
+                }
+            }
+            if (!found) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static List<String> tokenize(String text, boolean withCompact) {
+        List<String> tokens = new ArrayList<>(3);
+        StringBuilder token = new StringBuilder();
+        StringBuilder compact = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                c = Character.toLowerCase(c);
+                token.append(c);
+                compact.append(c);
+            } else if (token.length() > 0) {
+                addToken(tokens, token.toString());
+                token.setLength(0);
+            }
+        }
+        if (token.length() > 0) {
+            addToken(tokens, token.toString());
+        }
+        if (withCompact && tokens.size() > 1) {
+            addToken(tokens, compact.toString());
+        }
+        return tokens;
+    }
+
+    private static void addToken(List<String> tokens, String token) {
+        if (!tokens.contains(token)) {
+            tokens.add(token);
+        }
+    }
+
+    private static int maxEdits(String term) {
+        return term.length() >= MIN_FUZZY_LENGTH ? 1 : 0;
+    }
+
+    // Walks the trie with one row of the edit distance table per node, row[i] being the distance
+    // between the first i characters of the term and the prefix spelled by the path to the node.
+    private static void collect(Node node, String term, int[] row, int maxEdits, Set<String> ids) {
+        if (row[term.length()] <= maxEdits) {
+            // the whole term is matched, so is every token below
+            addSubtree(node, ids);
+            return;
+        }
+        if (min(row) > maxEdits) {
+            return;
+        }
+        for (int i = 0; i < node.keys.length; i++) {
+            collect(node.children[i], term, nextRow(row, term, node.keys[i]), maxEdits, ids);
+        }
+    }
+
+    private static void addSubtree(Node node, Set<String> ids) {
+        if (node.ids != null) {
+            ids.addAll(node.ids);
+        }
+        for (Node child : node.children) {
+            addSubtree(child, ids);
+        }
+    }
+
+    private static boolean isPrefixWithin(String term, String token, int maxEdits) {
+        int[] row = new int[term.length() + 1];
+        for (int i = 0; i < row.length; i++) {
+            row[i] = i;
+        }
+        for (int j = 0; j < token.length(); j++) {
+            if (row[term.length()] <= maxEdits) {
+                return true;
+            }
+            if (min(row) > maxEdits) {
+                return false;
+            }
+            row = nextRow(row, term, token.charAt(j));
+        }
+        return row[term.length()] <= maxEdits;
+    }
+
+    private static int[] nextRow(int[] row, String term, char c) {
+        int[] next = new int[row.length];
+        next[0] = row[0] + 1;
+        for (int i = 1; i < row.length; i++) {
+            int substitute = row[i - 1] + (term.charAt(i - 1) == c ? 0 : 1);
+            next[i] = Math.min(substitute, Math.min(row[i] + 1, next[i - 1] + 1));
+        }
+        return next;
+    }
+
+    private static int min(int[] row) {
+        int min = row[0];
+        for (int value : row) {
+            min = Math.min(min, value);
+        }
+        return min;
+    }
+
+    // Returns true if the node is left empty and can be dropped by its parent
+    private static boolean removeToken(Node node, String token, int depth, String id) {
+        if (depth == token.length()) {
+            if (node.ids != null) {
+                node.ids.remove(id);
+                if (node.ids.isEmpty()) {
+                    node.ids = null;
+                }
+            }
+            return node.isEmpty();
+        }
+        char key = token.charAt(depth);
+        Node child = node.child(key);
+        if (child != null && removeToken(child, token, depth + 1, id)) {
+            node.removeChild(key);
+        }
+        return node.isEmpty();
+    }
+}
@@ -0,0 +1,72 @@
+//
+// Copyright (c) Microsoft Corporation. All rights reserved.
+//
+
+package com.microsoft.romanapp.core;
+
+/**
+ * Filter built from the discovery type, system kind and status options and the name search text.
+ */
+public class DeviceQuery implements DeviceFilter {
+    private final DiscoveryType discoveryType;
+    private final DeviceKind kind;
+    private final StatusType status;
+    private final String nameQuery;
+
+    public DeviceQuery(DiscoveryType discoveryType, SystemKind systemKind) {
+        this(discoveryType, systemKind, "");
+    }
+
+    /**
+     * The name query is matched as described in DeviceNameIndex, an empty one matches every name.
+     */
+    public DeviceQuery(DiscoveryType discoveryType, SystemKind systemKind, String nameQuery) {
+        this(discoveryType, systemKind, StatusType.ANY, nameQuery);
+    }
+
+    public DeviceQuery(DiscoveryType discoveryType, SystemKind systemKind, StatusType status, String nameQuery) {
+        this.discoveryType = discoveryType;
+        this.kind = systemKind.toDeviceKind();
+        this.status = status;
+        this.nameQuery = nameQuery.trim();
+    }
+
+    public DiscoveryType getDiscoveryType() {
+        return discoveryType;
+    }
+
+    /**
+     * Returns the kind to match, or null for any kind.
+     */
+    public DeviceKind getKind() {
+        return kind;
+    }
+
+    public StatusType getStatus() {
+        return status;
+    }
+
+    public String getNameQuery() {
+        return nameQuery;
+    }
+
+    public boolean hasNameQuery() {
+        return !nameQuery.isEmpty();
+    }
+
+    @Override
+    public boolean matches(DeviceRecord device) {
+        // every discovered system is reachable through the cloud,
+        // only some are also available by proximity
+        if (discoveryType == DiscoveryType.PROXIMAL && !device.getIsAvailableByProximity()) {
+            return false;
+        }
+        if (kind != null && device.getKind() != kind) {
+            return false;
+        }
+        if (status == StatusType.AVAILABLE && !device.isAvailable()) {
+            return false;
+        }
+        return nameQuery.isEmpty() || DeviceNameIndex.matches(device.getName(), nameQuery);
+    }
+}
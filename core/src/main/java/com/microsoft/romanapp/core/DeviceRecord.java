@@ -0,0 +1,150 @@
+//
+// Copyright (c) Microsoft Corporation. All rights reserved.
+//
+
+package com.microsoft.romanapp.core;
+
+/**
+ * What is known about one discovered device.
+ * The fields are copied from the RemoteDevice so they stay readable after the device is gone,
+ * and a record loaded from a cache has no RemoteDevice at all until discovery reports it again.
+ */
+public class DeviceRecord {
+    private final String id;
+    private final long stableId;
+    private String name;
+    private String type;
+    private DeviceKind kind;
+    private boolean isAvailableByProximity;
+    private long lastSeen;
+    private RemoteDevice remote = null;
+    private boolean stale = false;
+
+    public DeviceRecord(RemoteDevice remote) {
+        id = remote.getId();
+        stableId = stableId(id);
+        update(remote);
+    }
+
+    /**
+     * Creates a device remembered from an earlier session, it has no RemoteDevice until discovery finds it again.
+     */
+    public DeviceRecord(String id, String name, DeviceKind kind, boolean isAvailableByProximity, long lastSeen) {
+        this.id = id;
+        this.stableId = stableId(id);
+        this.name = name;
+        this.kind = kind;
+        this.type = kind.toString();
+        this.isAvailableByProximity = isAvailableByProximity;
+        this.lastSeen = lastSeen;
+    }
+
+    /**
+     * Copies another record, for subclasses overriding copy.
+     */
+    protected DeviceRecord(DeviceRecord other) {
+        id = other.id;
+        stableId = other.stableId;
+        name = other.name;
+        type = other.type;
+        kind = other.kind;
+        isAvailableByProximity = other.isAvailableByProximity;
+        lastSeen = other.lastSeen;
+        remote = other.remote;
+        stale = other.stale;
+    }
+
+    /**
+     * Creates a device that only knows its id, for subclasses that restore the rest later.
+     */
+    protected DeviceRecord(String id) {
+        this.id = id;
+        this.stableId = stableId(id);
+    }
+
+    // Only called while constructing, records in a registry are never changed
+    private void update(RemoteDevice remote) {
+        this.remote = remote;
+        name = remote.getDisplayName();
+        kind = remote.getKind();
+        type = kind.toString();
+        isAvailableByProximity = remote.isAvailableByProximity();
+        lastSeen = System.currentTimeMillis();
+    }
+
+    public String getId() { return id; }
+
+    /**
+     * A 64 bit hash of the id, the same for every record of the same device, for use as a list item id.
+     */
+    public long getStableId() { return stableId; }
+
+    public String getName() { return name; }
+
+    public String getType() { return type; }
+
+    public DeviceKind getKind() { return kind; }
+
+    public RemoteDevice getRemote() { return remote; }
+
+    public boolean getIsAvailableByProximity() { return isAvailableByProximity; }
+
+    /**
+     * Wall clock time in milliseconds when discovery last reported this device.
+     */
+    public long getLastSeen() { return lastSeen; }
+
+    /**
+     * True for devices loaded from the cache that discovery has not reported yet.
+     */
+    public boolean isCached() { return remote == null; }
+
+    /**
+     * True for devices that discovery has not reported for a while, they may be gone.
+     */
+    public boolean isStale() { return stale; }
+
+    /**
+     * True for devices that discovery reported in this session and still reports.
+     */
+    public boolean isAvailable() { return remote != null && !stale; }
+
+    /**
+     * Tells whether a row showing this record would look the same as one showing the other,
+     * that is whether everything but the RemoteDevice and the last seen time is equal.
+     */
+    public boolean looksSameAs(DeviceRecord other) {
+        return id.equals(other.id)
+                && name.equals(other.name)
+                && kind == other.kind
+                && isAvailableByProximity == other.isAvailableByProximity
+                && isCached() == other.isCached()
+                && stale == other.stale;
+    }
+
+    /**
+     * Returns a stale copy of this record, records in a registry are never changed.
+     */
+    public DeviceRecord asStale() {
+        DeviceRecord copy = copy();
+        copy.stale = true;
+        return copy;
+    }
+
+    /**
+     * Subclasses return a copy of their own type.
+     */
+    protected DeviceRecord copy() {
+        return new DeviceRecord(this);
+    }
+
+    // FNV-1a, 64 bit
+    private static long stableId(String id) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < id.length(); i++) {
+            hash ^= id.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+}
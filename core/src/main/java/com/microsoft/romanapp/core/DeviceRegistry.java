@@ -0,0 +1,283 @@
+//
+// Copyright (c) Microsoft Corporation. All rights reserved.
+//
+
+package com.microsoft.romanapp.core;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Discovered devices indexed by RemoteSystem id.
+ * The devices accepted by the current filter are kept as rows in alphabetic order.
+ * Lookups by id are O(1), a device's row is found with a binary search over the names,
+ * so adds, updates and removals never rescan or resort the whole list.
+ * Every device is also kept in a DeviceFacets bitmap index, for selecting the candidates
+ * of a new filter and counting the devices behind each filter option.
+ *
+ * Not thread safe, a registry belongs to one thread. Registered records are never changed,
+ * an update replaces the record, so other threads can read them through a snapshot.
+ */
+public class DeviceRegistry<D extends DeviceRecord> {
+
+    public static final Comparator<DeviceRecord> NAME_ORDER = new Comparator<DeviceRecord>() {
+        @Override
+        public int compare(DeviceRecord d1, DeviceRecord d2) {
+            return d1.getName().compareTo(d2.getName());
+        }
+    };
+
+    public interface Callback {
+        void onInserted(int position);
+        void onChanged(int position);
+        void onMoved(int fromPosition, int toPosition);
+        void onRemoved(int position);
+        void onReset();
+    }
+
+    // Rows shown for the current filter, sorted by name
+    private final List<D> devices = new ArrayList<>();
+    // Every discovered device, whether it matches the filter or not
+    private final Map<String, D> devicesById = new HashMap<>();
+    private final DeviceFacets facets = new DeviceFacets();
+    private DeviceFilter filter = DeviceFilter.ALL;
+    private Callback callback;
+    private long version = 0;
+
+    public void setCallback(Callback callback) {
+        this.callback = callback;
+    }
+
+    /**
+     * Rebuilds the rows from the known devices without waiting for discovery.
+     */
+    public void setFilter(DeviceFilter filter) {
+        setFilter(filter, devicesById.keySet());
+    }
+
+    /**
+     * Like setFilter, but only looks at the given devices, for example the results of a
+     * DeviceNameIndex search. The filter must reject every device that is not a candidate.
+     */
+    public void setFilter(DeviceFilter filter, Collection<String> candidateIds) {
+        this.filter = filter;
+        version++;
+        devices.clear();
+        for (String id : candidateIds) {
+            D device = devicesById.get(id);
+            if (device != null && filter.matches(device)) {
+                devices.add(device);
+            }
+        }
+        Collections.sort(devices, NAME_ORDER);
+        if (callback != null) {
+            callback.onReset();
+        }
+    }
+
+    /**
+     * Number of rows that match the current filter.
+     */
+    public int size() {
+        return devices.size();
+    }
+
+    /**
+     * Number of known devices, including the ones hidden by the filter.
+     */
+    public int totalSize() {
+        return devicesById.size();
+    }
+
+    /**
+     * The bitmap index over every known device, kept up to date by the registry.
+     */
+    public DeviceFacets getFacets() {
+        return facets;
+    }
+
+    /**
+     * Counts the registry changes, including the ones to devices hidden by the filter.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Copies the current rows, O(rows).
+     */
+    public DeviceSnapshot<D> snapshot() {
+        return new DeviceSnapshot<>(devices, devicesById.size(), version);
+    }
+
+    public D get(int position) {
+        return devices.get(position);
+    }
+
+    public D getById(String id) {
+        return devicesById.get(id);
+    }
+
+    public boolean contains(String id) {
+        return devicesById.containsKey(id);
+    }
+
+    /**
+     * Inserts the device at its sorted position, or updates the existing device with the same id.
+     * Returns the position of the device, or -1 if the filter hides it.
+     */
+    public int add(D device) {
+        D existing = devicesById.get(device.getId());
+        if (existing != null) {
+            return update(existing, device);
+        }
+        devicesById.put(device.getId(), device);
+        facets.put(device);
+        version++;
+        if (!filter.matches(device)) {
+            return -1;
+        }
+        return insertRow(device);
+    }
+
+    /**
+     * Replaces the registered device with the same id and moves its row if the name changed.
+     * The row is only reported changed if it would look different, see DeviceRecord.looksSameAs.
+     * Unknown devices are added. Returns the position of the device, or -1 if the filter hides it.
+     */
+    public int update(D device) {
+        D existing = devicesById.get(device.getId());
+        if (existing == null) {
+            return add(device);
+        }
+        return update(existing, device);
+    }
+
+    /**
+     * Removes the device with the given id. Returns its former position, or -1 if it had no row.
+     */
+    public int remove(String id) {
+        D device = devicesById.remove(id);
+        if (device == null) {
+            return -1;
+        }
+        facets.remove(id);
+        version++;
+        if (!filter.matches(device)) {
+            return -1;
+        }
+        return removeRow(device);
+    }
+
+    public void clear() {
+        version++;
+        devices.clear();
+        devicesById.clear();
+        facets.clear();
+        if (callback != null) {
+            callback.onReset();
+        }
+    }
+
+    private int update(D existing, D updated) {
+        if (updated.isCached()) {
+            // a remembered device carries nothing newer than what is registered
+            return filter.matches(existing) ? indexOf(existing) : -1;
+        }
+        boolean wasShown = filter.matches(existing);
+        int position = wasShown ? indexOf(existing) : -1;
+        boolean nameChanged = !existing.getName().equals(updated.getName());
+        devicesById.put(updated.getId(), updated);
+        facets.put(updated);
+        version++;
+        boolean isShown = filter.matches(updated);
+        if (!wasShown) {
+            return isShown ? insertRow(updated) : -1;
+        }
+        if (!isShown) {
+            devices.remove(position);
+            if (callback != null) {
+                callback.onRemoved(position);
+            }
+            return -1;
+        }
+        if (!nameChanged) {
+            devices.set(position, updated);
+            // discovery reports every known device again on each scan, those rows need no redraw
+            if (callback != null && !updated.looksSameAs(existing)) {
+                callback.onChanged(position);
+            }
+            return position;
+        }
+        devices.remove(position);
+        int newPosition = findInsertPosition(updated);
+        devices.add(newPosition, updated);
+        if (callback != null) {
+            callback.onChanged(position);
+        }
+        if (newPosition != position && callback != null) {
+            callback.onMoved(position, newPosition);
+        }
+        return newPosition;
+    }
+
+    private int insertRow(D device) {
+        int position = findInsertPosition(device);
+        devices.add(position, device);
+        if (callback != null) {
+            callback.onInserted(position);
+        }
+        return position;
+    }
+
+    private int removeRow(D device) {
+        int position = indexOf(device);
+        devices.remove(position);
+        if (callback != null) {
+            callback.onRemoved(position);
+        }
+        return position;
+    }
+
+    // Finds the row of a registered device: binary search to the first device with the same name,
+    // then a short scan over the devices sharing that name.
+    private int indexOf(D device) {
+        int low = 0;
+        int high = devices.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (NAME_ORDER.compare(devices.get(mid), device) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        for (int i = low; i < devices.size(); i++) {
+            if (devices.get(i) == device) {
+                return i;
+            }
+        }
+        throw new IllegalStateException("Device " + device.getId() + " is not in the sorted list");
+    }
+
+    // Returns the index after the last device that sorts before or equal to the given one,
+    // so devices with equal names keep their arrival order.
+    private int findInsertPosition(D device) {
+        int low = 0;
+        int high = devices.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (NAME_ORDER.compare(devices.get(mid), device) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,59 @@
+//
+// Copyright (c) Microsoft Corporation. All rights reserved.
+//
+
+package com.microsoft.romanapp.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable copy of the rows of a DeviceRegistry at one moment.
+ * The registry replaces records instead of changing them, so a snapshot can be read on any
+ * thread while the registry keeps changing on another.
+ */
+public final class DeviceSnapshot<D extends DeviceRecord> {
+    private final List<D> rows;
+    private final int totalSize;
+    private final long version;
+
+    DeviceSnapshot(List<D> rows, int totalSize, long version) {
+        this.rows = Collections.unmodifiableList(new ArrayList<>(rows));
+        this.totalSize = totalSize;
+        this.version = version;
+    }
+
+    public static <D extends DeviceRecord> DeviceSnapshot<D> empty() {
+        return new DeviceSnapshot<>(Collections.<D>emptyList(), 0, 0);
+    }
+
+    /**
+     * Number of rows that matched the filter.
+     */
+    public int size() {
+        return rows.size();
+    }
+
+    /**
+     * Number of known devices, including the ones hidden by the filter.
+     */
+    public int totalSize() {
+        return totalSize;
+    }
+
+    public D get(int position) {
+        return rows.get(position);
+    }
+
+    public List<D> getRows() {
+        return rows;
+    }
+
+    /**
+     * Counts the registry changes, a newer snapshot has a higher version.
+     */
+    public long getVersion() {
+        return version;
+    }
+}
@@ -0,0 +1,18 @@
+//
+// Copyright (c) Microsoft Corporation. All rights reserved.
+//
+
+package com.microsoft.romanapp.core;
+
+/**
+ * Source of discovery events, implemented by the connected devices SDK and by the simulator.
+ */
+public interface DiscoveryBackend {
+    /**
+     * Starts reporting devices of every kind and transport to the listener.
+     * A backend runs one discovery at a time, starting again replaces the previous one.
+     */
+    void start(DiscoveryListener listener) throws BackendException;
+
+    void stop();
+}
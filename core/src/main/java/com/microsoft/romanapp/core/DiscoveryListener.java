@@ -0,0 +1,17 @@
+//
+// Copyright (c) Microsoft Corporation. All rights reserved.
+//
+
+package com.microsoft.romanapp.core;
+
+/**
+ * Receives discovery events, mirrors IRemoteSystemDiscoveryListener.
+ * Called on the backend's callback threads.
+ */
+public interface DiscoveryListener {
+    void onDeviceAdded(RemoteDevice device);
+
+    void onDeviceUpdated(RemoteDevice device);
+
+    void onDeviceRemoved(String id);
+}
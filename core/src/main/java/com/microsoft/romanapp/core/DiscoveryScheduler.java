@@ -0,0 +1,220 @@
+//
+// Copyright (c) Microsoft Corporation. All rights reserved.
+//
+
+package com.microsoft.romanapp.core;
+
+/**
+ * Decides when discovery runs, created with a Builder.
+ *
+ * A scan is stopped once it is quiescent, that is when no device was added, updated or removed
+ * for quietMs. Discovery then pauses and is started again after a backoff. A scan that changed
+ * the device list is followed by the shortest pause, one that only reported known devices
+ * doubles the pause up to the longest one, so a settled fleet is scanned less and less often.
+ * Starting discovery on a user action goes back to the shortest pause.
+ *
+ * The owner calls poll when getDelayMs has elapsed and starts or stops discovery as told.
+ * All methods are thread safe, events may be reported from any thread.
+ */
+public class DiscoveryScheduler {
+
+    public enum State {
+        // discovery was not started, or was stopped by the owner
+        IDLE,
+        SCANNING,
+        // stopped after a quiescent scan, started again when the pause is over
+        PAUSED
+    }
+
+    public enum Action {
+        NONE,
+        START,
+        STOP
+    }
+
+    private final long quietMs;
+    private final long minPauseMs;
+    private final long maxPauseMs;
+    private final Clock clock;
+
+    private State state = State.IDLE;
+    private long stateSince;
+    private long lastEventAt;
+    private boolean changedThisScan;
+    private long pauseMs;
+
+    private long firstStartedAt = -1;
+    private long scanningMs = 0;
+    private int scans = 0;
+
+    private DiscoveryScheduler(Builder builder) {
+        quietMs = builder.quietMs;
+        minPauseMs = builder.minPauseMs;
+        maxPauseMs = builder.maxPauseMs;
+        clock = builder.clock;
+        pauseMs = minPauseMs;
+    }
+
+    /**
+     * Records that the owner started discovery on its own, for instance on a user action.
+     */
+    public synchronized void onStarted() {
+        pauseMs = minPauseMs;
+        startScan(clock.now());
+    }
+
+    /**
+     * Records that the owner stopped discovery, it is not started again until onStarted.
+     */
+    public synchronized void onStopped() {
+        long now = clock.now();
+        if (state == State.SCANNING) {
+            endScan(now);
+        }
+        setState(State.IDLE, now);
+    }
+
+    /**
+     * Records a discovery event, changed tells whether it altered the device list
+     * rather than reporting a known device again.
+     */
+    public synchronized void onEvent(boolean changed) {
+        if (state != State.SCANNING) {
+            return;
+        }
+        lastEventAt = clock.now();
+        changedThisScan |= changed;
+    }
+
+    /**
+     * Moves to the next state if its time has come and tells the owner what to do about it.
+     */
+    public synchronized Action poll() {
+        long now = clock.now();
+        switch (state) {
+            case SCANNING:
+                if (now - lastEventAt < quietMs) {
+                    return Action.NONE;
+                }
+                endScan(now);
+                pauseMs = changedThisScan ? minPauseMs : Math.min(pauseMs * 2, maxPauseMs);
+                setState(State.PAUSED, now);
+                return Action.STOP;
+            case PAUSED:
+                if (now - stateSince < pauseMs) {
+                    return Action.NONE;
+                }
+                startScan(now);
+                return Action.START;
+            default:
+                return Action.NONE;
+        }
+    }
+
+    /**
+     * Milliseconds until poll may have something to do, or -1 while IDLE.
+     */
+    public synchronized long getDelayMs() {
+        long now = clock.now();
+        switch (state) {
+            case SCANNING:
+                return Math.max(0, lastEventAt + quietMs - now);
+            case PAUSED:
+                return Math.max(0, stateSince + pauseMs - now);
+            default:
+                return -1;
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * Length of the current pause, or of the next one if discovery is scanning.
+     */
+    public synchronized long getPauseMs() {
+        return pauseMs;
+    }
+
+    public synchronized int getScans() {
+        return scans;
+    }
+
+    /**
+     * Time spent scanning since discovery was first started, including the current scan.
+     */
+    public synchronized long getScanningMs() {
+        return scanningMs + (state == State.SCANNING ? clock.now() - stateSince : 0);
+    }
+
+    /**
+     * Fraction of the time since discovery was first started that was spent scanning,
+     * from 0 to 1. Time in the IDLE state counts as not scanning.
+     */
+    public synchronized double getDutyCycle() {
+        if (firstStartedAt < 0) {
+            return 0;
+        }
+        long elapsed = clock.now() - firstStartedAt;
+        return elapsed <= 0 ? 1 : Math.min(1, (double) getScanningMs() / elapsed);
+    }
+
+    private void startScan(long now) {
+        if (state == State.SCANNING) {
+            endScan(now);
+        }
+        if (firstStartedAt < 0) {
+            firstStartedAt = now;
+        }
+        scans++;
+        lastEventAt = now;
+        changedThisScan = false;
+        setState(State.SCANNING, now);
+    }
+
+    private void endScan(long now) {
+        scanningMs += now - stateSince;
+    }
+
+    private void setState(State state, long now) {
+        this.state = state;
+        stateSince = now;
+    }
+
+    public static final class Builder {
+        private long quietMs = 10 * 1000;
+        private long minPauseMs = 15 * 1000;
+        private long maxPauseMs = 2 * 60 * 1000;
+        private Clock clock = Clock.SYSTEM;
+
+        /**
+         * A scan without any event for this long is stopped.
+         */
+        public Builder setQuietMs(long quietMs) {
+            if (quietMs <= 0) {
+                throw new IllegalArgumentException("quietMs must be positive");
+            }
+            this.quietMs = quietMs;
+            return this;
+        }
+
+        public Builder setPause(long minPauseMs, long maxPauseMs) {
+            if (minPauseMs <= 0 || maxPauseMs < minPauseMs) {
+                throw new IllegalArgumentException("Invalid pause");
+            }
+            this.minPauseMs = minPauseMs;
+            this.maxPauseMs = maxPauseMs;
+            return this;
+        }
+
+        public Builder setClock(Clock clock) {
+            this.clock = clock;
+            return this;
+        }
+
+        public DiscoveryScheduler getResult() {
+            return new DiscoveryScheduler(this);
+        }
+    }
+}
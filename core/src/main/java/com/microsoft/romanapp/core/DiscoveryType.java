@@ -0,0 +1,31 @@
+//
+// Copyright (c) Microsoft Corporation. All rights reserved.
+//
+
+package com.microsoft.romanapp.core;
+
+/**
+ * Transport filter options as shown in the discovery type spinner.
+ */
+public enum DiscoveryType {
+    ALL("All"),
+    CLOUD("Cloud"),
+    PROXIMAL("Proximal");
+
+    private final String value;
+
+    DiscoveryType(String value) { this.value = value; }
+
+    public static DiscoveryType fromString(String value) {
+        switch (value) {
+            case "All"         : return ALL;
+            case "Cloud"       : return CLOUD;
+            case "Proximal"    : return PROXIMAL;
+        }
+        return ALL;
+    }
+
+    public String getValue() {
+        return value;
+    }
+}
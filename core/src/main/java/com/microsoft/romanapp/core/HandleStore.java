@@ -0,0 +1,109 @@
+//
+// Copyright (c) Microsoft Corporation. All rights reserved.
+//
+
+package com.microsoft.romanapp.core;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Bounded, thread safe store of handles that cannot travel with the object referring to them,
+ * such as the RemoteSystem behind a parcelled device.
+ *
+ * Every put (one per parcel written) takes a reference that the next get (one per parcel read)
+ * gives back. Any entry, referenced or not, is evicted once it has not been accessed for ttlMs.
+ * Until then referenced entries are never evicted for room; unreferenced entries stay readable
+ * but are evicted least recently used first once the store is full.
+ */
+public class HandleStore<T> {
+    private static final class Entry<T> {
+        T handle;
+        int refs;
+        long lastAccess;
+    }
+
+    private final int maxEntries;
+    private final long ttlMs;
+    private final Clock clock;
+
+    // access order, so iteration starts at the least recently used entry
+    private final LinkedHashMap<String, Entry<T>> map = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+
+    public HandleStore(int maxEntries, long ttlMs, Clock clock) {
+        this.maxEntries = maxEntries;
+        this.ttlMs = ttlMs;
+        this.clock = clock;
+    }
+
+    public synchronized void put(String id, T handle) {
+        if (id == null || handle == null) {
+            throw new IllegalArgumentException("Id and handle must not be null");
+        }
+        long now = clock.now();
+        Entry<T> entry = map.get(id);
+        if (entry == null) {
+            entry = new Entry<>();
+            map.put(id, entry);
+        }
+        entry.handle = handle;
+        entry.refs++;
+        entry.lastAccess = now;
+        evict(now);
+    }
+
+    public synchronized T get(String id) throws NoSuchElementException {
+        long now = clock.now();
+        evict(now);
+        Entry<T> entry = map.get(id);
+        if (entry == null) {
+            misses++;
+            throw new NoSuchElementException("Handle " + id + " is not in storage");
+        }
+        hits++;
+        if (entry.refs > 0) {
+            entry.refs--;
+        }
+        entry.lastAccess = now;
+        return entry.handle;
+    }
+
+    public synchronized int size() {
+        return map.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    // Drops expired entries, then unreferenced entries in LRU order while over capacity.
+    private void evict(long now) {
+        int excess = map.size() - maxEntries;
+        Iterator<Map.Entry<String, Entry<T>>> it = map.entrySet().iterator();
+        while (it.hasNext()) {
+            Entry<T> entry = it.next().getValue();
+            if (now - entry.lastAccess > ttlMs || (excess > 0 && entry.refs == 0)) {
+                it.remove();
+                evictions++;
+                excess--;
+            } else if (excess <= 0) {
+                // Entries further along were accessed more recently, so none of them have expired
+                break;
+            }
+        }
+    }
+}
@@ -0,0 +1,23 @@
+//
+// Copyright (c) Microsoft Corporation. All rights reserved.
+//
+
+package com.microsoft.romanapp.core;
+
+/**
+ * Observes the retries and circuit breaker decisions of a RetryingLaunchBackend.
+ * Called on the thread that reported the launch outcome, or the caller's thread for fast failures.
+ */
+public interface LaunchAttemptListener {
+    /**
+     * The given attempt, counted from 1, failed with a transient status and is tried again after delayMs.
+     */
+    void onRetryScheduled(RemoteDevice device, int attempt, LaunchStatus status, long delayMs);
+
+    /**
+     * A launch was not attempted because the device's circuit is open.
+     */
+    void onRejected(RemoteDevice device, long retryInMs);
+
+    void onCircuitStateChanged(RemoteDevice device, CircuitBreaker.State state, int failures);
+}
@@ -0,0 +1,12 @@
+//
+// Copyright (c) Microsoft Corporation. All rights reserved.
+//
+
+package com.microsoft.romanapp.core;
+
+/**
+ * Launches URIs on remote devices, implemented by the connected devices SDK and by the simulator.
+ */
+public interface LaunchBackend {
+    void launchUri(RemoteDevice device, String uri, LaunchCallback callback) throws BackendException;
+}
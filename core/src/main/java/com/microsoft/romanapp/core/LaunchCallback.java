@@ -0,0 +1,12 @@
+//
+// Copyright (c) Microsoft Corporation. All rights reserved.
+//
+
+package com.microsoft.romanapp.core;
+
+/**
+ * Receives the outcome of a launch, mirrors IRemoteLauncherListener.
+ */
+public interface LaunchCallback {
+    void onCompleted(LaunchStatus status);
+}
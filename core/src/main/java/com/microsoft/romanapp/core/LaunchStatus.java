@@ -0,0 +1,31 @@
+//
+// Copyright (c) Microsoft Corporation. All rights reserved.
+//
+
+package com.microsoft.romanapp.core;
+
+/**
+ * Outcome of a URI launch, mirrors the connected devices RemoteLaunchUriStatus.
+ */
+public enum LaunchStatus {
+    UNKNOWN,
+    SUCCESS,
+    APP_UNAVAILABLE,
+    PROTOCOL_UNAVAILABLE,
+    REMOTE_SYSTEM_UNAVAILABLE,
+    VALUE_SET_TOO_LARGE,
+    DENIED_BY_LOCAL_SYSTEM,
+    DENIED_BY_REMOTE_SYSTEM;
+
+    /**
+     * Maps a status by name, unknown names map to UNKNOWN.
+     */
+    public static LaunchStatus fromName(String name) {
+        for (LaunchStatus status : values()) {
+            if (status.name().equals(name)) {
+                return status;
+            }
+        }
+        return UNKNOWN;
+    }
+}
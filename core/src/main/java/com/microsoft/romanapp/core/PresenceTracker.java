@@ -0,0 +1,86 @@
+//
+// Copyright (c) Microsoft Corporation. All rights reserved.
+//
+
+package com.microsoft.romanapp.core;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Tracks when each device was last reported and ages the silent ones.
+ *
+ * A device that has not been reported for staleAfterMs becomes stale, and one that stays
+ * stale for another expireAfterMs expires. Every device has a single timer in a TimerWheel,
+ * so a sweep costs O(devices that changed state) rather than O(devices). Not thread safe.
+ */
+public class PresenceTracker {
+
+    public interface Listener {
+        void onStale(String id);
+
+        void onExpired(String id);
+    }
+
+    private final long staleAfterMs;
+    private final long expireAfterMs;
+    private final Clock clock;
+    private final TimerWheel<String> wheel;
+    private final Set<String> stale = new HashSet<>();
+
+    /**
+     * @param tickMs resolution of the sweeps, the wheel is sized so both delays fit in one turn
+     */
+    public PresenceTracker(long staleAfterMs, long expireAfterMs, long tickMs, Clock clock) {
+        this.staleAfterMs = staleAfterMs;
+        this.expireAfterMs = expireAfterMs;
+        this.clock = clock;
+        long span = Math.max(staleAfterMs, expireAfterMs);
+        this.wheel = new TimerWheel<>((int) Math.min(span / tickMs + 1, 1 << 16), tickMs, clock.now());
+    }
+
+    /**
+     * Records that discovery reported the device just now, it is fresh again.
+     */
+    public void touch(String id) {
+        stale.remove(id);
+        wheel.schedule(id, clock.now() + staleAfterMs);
+    }
+
+    public void forget(String id) {
+        stale.remove(id);
+        wheel.cancel(id);
+    }
+
+    public void clear() {
+        stale.clear();
+        wheel.clear();
+    }
+
+    public boolean isStale(String id) {
+        return stale.contains(id);
+    }
+
+    /**
+     * Number of tracked devices.
+     */
+    public int size() {
+        return wheel.size();
+    }
+
+    /**
+     * Moves the devices whose time is up to the next state and reports them.
+     */
+    public void sweep(Listener listener) {
+        long now = clock.now();
+        for (String id : wheel.advance(now)) {
+            if (stale.remove(id)) {
+                listener.onExpired(id);
+            } else {
+                stale.add(id);
+                wheel.schedule(id, now + expireAfterMs);
+                listener.onStale(id);
+            }
+        }
+    }
+}
@@ -0,0 +1,183 @@
+//
+// Copyright (c) Microsoft Corporation. All rights reserved.
+//
+
+package com.microsoft.romanapp.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Prepares connections to devices that are likely to be launched on next, and launches through
+ * another backend so it can tell which preparations were used.
+ *
+ * At most maxWarm devices are kept warm, the oldest one is cancelled to make room for another.
+ * A warm device that is not launched on within unusedTimeoutMs is cancelled, as is one that
+ * its caller releases. Launches per device are counted to find the most launched ones.
+ * Does nothing while disabled. All methods are thread safe.
+ */
+public class Prewarmer implements LaunchBackend {
+
+    /**
+     * Opens and closes the connection of a device ahead of a launch.
+     */
+    public interface Warmer {
+        void prewarm(RemoteDevice device) throws BackendException;
+
+        /**
+         * Drops the prepared connection unless a launch has used it meanwhile.
+         */
+        void cancel(String id);
+    }
+
+    private final LaunchBackend backend;
+    private final Warmer warmer;
+    private final int maxWarm;
+    private final long unusedTimeoutMs;
+    private final Clock clock;
+
+    // guarded by this: the warm devices by start time, oldest first, and the launch counts
+    private final LinkedHashMap<String, Long> warm = new LinkedHashMap<>();
+    private final Map<String, Integer> launchCounts = new HashMap<>();
+    private boolean enabled = false;
+    private long started = 0;
+    private long used = 0;
+    private long cancelled = 0;
+
+    public Prewarmer(LaunchBackend backend, Warmer warmer, int maxWarm, long unusedTimeoutMs, Clock clock) {
+        this.backend = backend;
+        this.warmer = warmer;
+        this.maxWarm = maxWarm;
+        this.unusedTimeoutMs = unusedTimeoutMs;
+        this.clock = clock;
+    }
+
+    public synchronized boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Disabling cancels every warm device.
+     */
+    public synchronized void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        if (!enabled) {
+            for (String id : warm.keySet()) {
+                warmer.cancel(id);
+                cancelled++;
+            }
+            warm.clear();
+        }
+    }
+
+    /**
+     * Starts preparing the connection of the device. Returns false when disabled or already warm.
+     */
+    public synchronized boolean prewarm(RemoteDevice device) {
+        expire();
+        if (!enabled || maxWarm <= 0 || warm.containsKey(device.getId())) {
+            return false;
+        }
+        if (warm.size() >= maxWarm) {
+            Iterator<String> oldest = warm.keySet().iterator();
+            warmer.cancel(oldest.next());
+            oldest.remove();
+            cancelled++;
+        }
+        try {
+            warmer.prewarm(device);
+        } catch (BackendException e) {
+            return false;
+        }
+        warm.put(device.getId(), clock.now());
+        started++;
+        return true;
+    }
+
+    /**
+     * Prewarms the device if it is among the topN most launched ones.
+     */
+    public synchronized boolean prewarmIfFrequent(RemoteDevice device, int topN) {
+        if (!enabled || !launchCounts.containsKey(device.getId())) {
+            return false;
+        }
+        return getMostLaunched(topN).contains(device.getId()) && prewarm(device);
+    }
+
+    /**
+     * The caller no longer expects a launch on the device, cancels it if it is warm.
+     */
+    public synchronized void release(String id) {
+        if (warm.remove(id) != null) {
+            warmer.cancel(id);
+            cancelled++;
+        }
+    }
+
+    /**
+     * Ids of the most launched devices, most launched first.
+     */
+    public synchronized List<String> getMostLaunched(int n) {
+        List<Map.Entry<String, Integer>> entries = new ArrayList<>(launchCounts.entrySet());
+        Collections.sort(entries, new Comparator<Map.Entry<String, Integer>>() {
+            @Override
+            public int compare(Map.Entry<String, Integer> e1, Map.Entry<String, Integer> e2) {
+                return e2.getValue().compareTo(e1.getValue());
+            }
+        });
+        List<String> ids = new ArrayList<>(Math.min(n, entries.size()));
+        for (int i = 0; i < n && i < entries.size(); i++) {
+            ids.add(entries.get(i).getKey());
+        }
+        return ids;
+    }
+
+    @Override
+    public void launchUri(RemoteDevice device, String uri, LaunchCallback callback) throws BackendException {
+        synchronized (this) {
+            expire();
+            if (warm.remove(device.getId()) != null) {
+                used++;
+            }
+            Integer count = launchCounts.get(device.getId());
+            launchCounts.put(device.getId(), count == null ? 1 : count + 1);
+        }
+        backend.launchUri(device, uri, callback);
+    }
+
+    public synchronized long getStarted() {
+        return started;
+    }
+
+    public synchronized long getUsed() {
+        return used;
+    }
+
+    public synchronized long getCancelled() {
+        return cancelled;
+    }
+
+    public synchronized String getStats() {
+        return "prewarmed " + started + ", used " + used + ", cancelled " + cancelled + ", warm " + warm.size();
+    }
+
+    private void expire() {
+        long now = clock.now();
+        Iterator<Map.Entry<String, Long>> it = warm.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Long> entry = it.next();
+            if (now - entry.getValue() < unusedTimeoutMs) {
+                break;
+            }
+            warmer.cancel(entry.getKey());
+            it.remove();
+            cancelled++;
+        }
+    }
+}
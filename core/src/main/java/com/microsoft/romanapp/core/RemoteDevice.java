@@ -0,0 +1,19 @@
+//
+// Copyright (c) Microsoft Corporation. All rights reserved.
+//
+
+package com.microsoft.romanapp.core;
+
+/**
+ * The parts of a discovered remote system that the core logic needs.
+ * The app implements it on top of the connected devices RemoteSystem.
+ */
+public interface RemoteDevice {
+    String getId();
+
+    String getDisplayName();
+
+    DeviceKind getKind();
+
+    boolean isAvailableByProximity();
+}
@@ -0,0 +1,105 @@
+//
+// Copyright (c) Microsoft Corporation. All rights reserved.
+//
+
+package com.microsoft.romanapp.core;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * How often and how soon a failed launch is tried again, created with a Builder.
+ *
+ * Only transient statuses are retried. The delay before attempt n + 1 is drawn uniformly
+ * from [b / 2, b] with b = min(initial backoff * multiplier ^ (n - 1), max backoff),
+ * so devices failing together do not all retry at the same moment.
+ */
+public final class RetryPolicy {
+    public static final RetryPolicy NONE = new Builder().setMaxAttempts(1).getResult();
+
+    private final int maxAttempts;
+    private final long initialBackoffMs;
+    private final long maxBackoffMs;
+    private final double multiplier;
+    private final Set<LaunchStatus> retryableStatuses;
+
+    private RetryPolicy(Builder builder) {
+        maxAttempts = builder.maxAttempts;
+        initialBackoffMs = builder.initialBackoffMs;
+        maxBackoffMs = builder.maxBackoffMs;
+        multiplier = builder.multiplier;
+        retryableStatuses = Collections.unmodifiableSet(EnumSet.copyOf(builder.retryableStatuses));
+    }
+
+    /** Attempts per launch including the first one. */
+    public int getMaxAttempts() { return maxAttempts; }
+
+    public long getInitialBackoffMs() { return initialBackoffMs; }
+
+    public long getMaxBackoffMs() { return maxBackoffMs; }
+
+    public double getMultiplier() { return multiplier; }
+
+    public Set<LaunchStatus> getRetryableStatuses() { return retryableStatuses; }
+
+    public boolean isRetryable(LaunchStatus status) {
+        return retryableStatuses.contains(status);
+    }
+
+    /**
+     * Tells whether another attempt should follow the given failed attempt, counted from 1.
+     */
+    public boolean shouldRetry(int attempt, LaunchStatus status) {
+        return attempt < maxAttempts && isRetryable(status);
+    }
+
+    /**
+     * Returns the delay in milliseconds before the attempt that follows the given one.
+     */
+    public long getBackoffMs(int attempt, Random random) {
+        double backoff = initialBackoffMs * Math.pow(multiplier, attempt - 1);
+        long bound = (long) Math.min(backoff, maxBackoffMs);
+        long half = bound / 2;
+        return half + (bound - half > 0 ? (long) (random.nextDouble() * (bound - half + 1)) : 0);
+    }
+
+    public static final class Builder {
+        private int maxAttempts = 4;
+        private long initialBackoffMs = 500;
+        private long maxBackoffMs = 8000;
+        private double multiplier = 2;
+        // the device could not be reached or gave no answer, anything else will fail the same way again
+        private final Set<LaunchStatus> retryableStatuses =
+                EnumSet.of(LaunchStatus.UNKNOWN, LaunchStatus.REMOTE_SYSTEM_UNAVAILABLE);
+
+        public Builder setMaxAttempts(int maxAttempts) {
+            if (maxAttempts < 1) {
+                throw new IllegalArgumentException("maxAttempts must be at least 1");
+            }
+            this.maxAttempts = maxAttempts;
+            return this;
+        }
+
+        public Builder setBackoff(long initialBackoffMs, long maxBackoffMs, double multiplier) {
+            if (initialBackoffMs < 0 || maxBackoffMs < initialBackoffMs || multiplier < 1) {
+                throw new IllegalArgumentException("Invalid backoff");
+            }
+            this.initialBackoffMs = initialBackoffMs;
+            this.maxBackoffMs = maxBackoffMs;
+            this.multiplier = multiplier;
+            return this;
+        }
+
+        public Builder setRetryableStatuses(Set<LaunchStatus> statuses) {
+            retryableStatuses.clear();
+            retryableStatuses.addAll(statuses);
+            return this;
+        }
+
+        public RetryPolicy getResult() {
+            return new RetryPolicy(this);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+//
+// Copyright (c) Microsoft Corporation. All rights reserved.
+//
+
+package com.microsoft.romanapp.core;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Launches through another backend, retrying transient failures as the RetryPolicy says
+ * and failing fast with REMOTE_SYSTEM_UNAVAILABLE while a device's circuit is open.
+ *
+ * Only transient statuses count as circuit failures, any other outcome shows the device answered.
+ * An attempt the backend refuses to start, by throwing, counts as a failure as well, so a HALF_OPEN
+ * trial always reports back to the breaker. A failure threshold below the policy's maxAttempts
+ * opens the circuit before the last retries of a launch can run.
+ * The callback is called once per launch, with the status of the last attempt.
+ */
+public class RetryingLaunchBackend implements LaunchBackend {
+    private final LaunchBackend backend;
+    private final RetryPolicy policy;
+    private final CircuitBreaker breaker;
+    private final ScheduledExecutorService scheduler;
+    private final Random random = new Random();
+    private final List<LaunchAttemptListener> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * The scheduler runs the delayed retries, it is not shut down by this class.
+     */
+    public RetryingLaunchBackend(LaunchBackend backend, RetryPolicy policy, CircuitBreaker breaker,
+                                 ScheduledExecutorService scheduler) {
+        this.backend = backend;
+        this.policy = policy;
+        this.breaker = breaker;
+        this.scheduler = scheduler;
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return breaker;
+    }
+
+    public RetryPolicy getPolicy() {
+        return policy;
+    }
+
+    public void addListener(LaunchAttemptListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(LaunchAttemptListener listener) {
+        listeners.remove(listener);
+    }
+
+    @Override
+    public void launchUri(RemoteDevice device, String uri, LaunchCallback callback) throws BackendException {
+        if (!breaker.allow(device.getId())) {
+            for (LaunchAttemptListener listener : listeners) {
+                listener.onRejected(device, breaker.getRemainingOpenMs(device.getId()));
+            }
+            callback.onCompleted(LaunchStatus.REMOTE_SYSTEM_UNAVAILABLE);
+            return;
+        }
+        try {
+            attempt(device, uri, callback, 1);
+        } catch (BackendException e) {
+            record(device, true);
+            throw e;
+        }
+    }
+
+    private void attempt(final RemoteDevice device, final String uri, final LaunchCallback callback,
+                         final int attempt) throws BackendException {
+        backend.launchUri(device, uri, new LaunchCallback() {
+            @Override
+            public void onCompleted(LaunchStatus status) {
+                onAttemptCompleted(device, uri, callback, attempt, status);
+            }
+        });
+    }
+
+    private void onAttemptCompleted(final RemoteDevice device, final String uri, final LaunchCallback callback,
+                                    final int attempt, LaunchStatus status) {
+        CircuitBreaker.State after = record(device, policy.isRetryable(status));
+        // an opened circuit ends the retries as well
+        if (!policy.shouldRetry(attempt, status) || after != CircuitBreaker.State.CLOSED) {
+            callback.onCompleted(status);
+            return;
+        }
+        long delayMs = policy.getBackoffMs(attempt, random);
+        for (LaunchAttemptListener listener : listeners) {
+            listener.onRetryScheduled(device, attempt, status, delayMs);
+        }
+        final LaunchStatus lastStatus = status;
+        scheduler.schedule(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    attempt(device, uri, callback, attempt + 1);
+                } catch (BackendException e) {
+                    record(device, true);
+                    callback.onCompleted(lastStatus);
+                }
+            }
+        }, delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    private CircuitBreaker.State record(RemoteDevice device, boolean failed) {
+        String id = device.getId();
+        CircuitBreaker.State before = breaker.getState(id);
+        CircuitBreaker.State after = failed ? breaker.onFailure(id) : breaker.onSuccess(id);
+        if (after != before) {
+            for (LaunchAttemptListener listener : listeners) {
+                listener.onCircuitStateChanged(device, after, breaker.getFailures(id));
+            }
+        }
+        return after;
+    }
+}
@@ -0,0 +1,28 @@
+//
+// Copyright (c) Microsoft Corporation. All rights reserved.
+//
+
+package com.microsoft.romanapp.core;
+
+/**
+ * Availability filter options as shown in the status spinner.
+ */
+public enum StatusType {
+    ANY("Any"),
+    AVAILABLE("Available");
+
+    private final String value;
+
+    StatusType(String value) { this.value = value; }
+
+    public static StatusType fromString(String value) {
+        switch (value) {
+            case "Available"   : return AVAILABLE;
+        }
+        return ANY;
+    }
+
+    public String getValue() {
+        return value;
+    }
+}
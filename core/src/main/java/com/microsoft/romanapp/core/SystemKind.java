@@ -0,0 +1,55 @@
+//
+// Copyright (c) Microsoft Corporation. All rights reserved.
+//
+
+package com.microsoft.romanapp.core;
+
+/**
+ * Device kind filter options as shown in the system kind spinner.
+ */
+public enum SystemKind {
+    ALL("All"),
+    UNKNOWN("Unknown"),
+    DESKTOP("Desktop"),
+    HOLOGRAPHIC("Holographic"),
+    PHONE("Phone"),
+    XBOX("Xbox");
+
+    private final String value;
+
+    SystemKind(String value) { this.value = value; }
+
+    public static SystemKind fromString(String value) {
+        switch (value) {
+            case "All"         : return ALL;
+            case "Desktop"     : return DESKTOP;
+            case "Holographic" : return HOLOGRAPHIC;
+            case "Phone"       : return PHONE;
+            case "Xbox"        : return XBOX;
+        }
+        return UNKNOWN;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    /**
+     * Returns the matching DeviceKind, or null for ALL.
+     */
+    public DeviceKind toDeviceKind() {
+        switch (this) {
+            case UNKNOWN:
+                return DeviceKind.UNKNOWN;
+            case DESKTOP:
+                return DeviceKind.DESKTOP;
+            case HOLOGRAPHIC:
+                return DeviceKind.HOLOGRAPHIC;
+            case PHONE:
+                return DeviceKind.PHONE;
+            case XBOX:
+                return DeviceKind.XBOX;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,157 @@
+//
+// Copyright (c) Microsoft Corporation. All rights reserved.
+//
+
+package com.microsoft.romanapp.core;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hashed timer wheel holding at most one deadline per key.
+ *
+ * Time is cut into ticks of tickMs and a timer lives in the slot of its deadline's tick,
+ * in a linked list so that it can be cancelled or rescheduled in O(1). Advancing only visits
+ * the slots of the ticks that passed, so as long as the deadlines lie within one turn of the
+ * wheel (slots * tickMs) a tick costs O(timers that expired). Timers further out stay in their
+ * slot for more turns. Not thread safe.
+ */
+public class TimerWheel<K> {
+
+    private static final class Timer<K> {
+        final K key;
+        long deadline;
+        int slot;
+        Timer<K> previous;
+        Timer<K> next;
+
+        Timer(K key) {
+            this.key = key;
+        }
+    }
+
+    private final long tickMs;
+    private final Timer<K>[] slots;
+    private final Map<K, Timer<K>> timers = new HashMap<>();
+    // the next tick to process
+    private long currentTick;
+
+    /**
+     * @param slotCount number of slots, rounded up to a power of two
+     * @param now the current time, on the same clock as the deadlines
+     */
+    public TimerWheel(int slotCount, long tickMs, long now) {
+        if (slotCount < 1 || tickMs < 1) {
+            throw new IllegalArgumentException("Invalid timer wheel size");
+        }
+        int size = Integer.highestOneBit(slotCount);
+        if (size < slotCount) {
+            size <<= 1;
+        }
+        this.tickMs = tickMs;
+        this.slots = newSlots(size);
+        this.currentTick = now / tickMs;
+    }
+
+    public int size() {
+        return timers.size();
+    }
+
+    public boolean contains(K key) {
+        return timers.containsKey(key);
+    }
+
+    /**
+     * Time covered by one turn of the wheel, deadlines further out cost an extra visit per turn.
+     */
+    public long getSpanMs() {
+        return slots.length * tickMs;
+    }
+
+    /**
+     * Sets the deadline of the key, replacing any earlier one. A deadline in the past expires on the next advance.
+     */
+    public void schedule(K key, long deadline) {
+        Timer<K> timer = timers.get(key);
+        if (timer == null) {
+            timer = new Timer<>(key);
+            timers.put(key, timer);
+        } else {
+            unlink(timer);
+        }
+        timer.deadline = deadline;
+        link(timer, Math.max(deadline / tickMs, currentTick));
+    }
+
+    public boolean cancel(K key) {
+        Timer<K> timer = timers.remove(key);
+        if (timer == null) {
+            return false;
+        }
+        unlink(timer);
+        return true;
+    }
+
+    public void clear() {
+        timers.clear();
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = null;
+        }
+    }
+
+    /**
+     * Removes and returns the keys whose deadline is at or before now, in tick order.
+     */
+    public List<K> advance(long now) {
+        List<K> expired = new ArrayList<>();
+        long targetTick = now / tickMs;
+        // after a long pause every slot is visited once
+        long lastTick = Math.min(targetTick, currentTick + slots.length - 1);
+        for (long tick = currentTick; tick <= lastTick; tick++) {
+            Timer<K> timer = slots[(int) (tick & (slots.length - 1))];
+            while (timer != null) {
+                Timer<K> next = timer.next;
+                if (timer.deadline <= now) {
+                    unlink(timer);
+                    timers.remove(timer.key);
+                    expired.add(timer.key);
+                }
+                timer = next;
+            }
+        }
+        currentTick = Math.max(currentTick, targetTick);
+        return expired;
+    }
+
+    // a generic array can only be created with a wildcard, every slot holds Timer<K> once linked
+    @SuppressWarnings("unchecked")
+    private static <K> Timer<K>[] newSlots(int size) {
+        return (Timer<K>[]) new Timer<?>[size];
+    }
+
+    private void link(Timer<K> timer, long tick) {
+        int slot = (int) (tick & (slots.length - 1));
+        timer.slot = slot;
+        timer.previous = null;
+        timer.next = slots[slot];
+        if (timer.next != null) {
+            timer.next.previous = timer;
+        }
+        slots[slot] = timer;
+    }
+
+    private void unlink(Timer<K> timer) {
+        if (timer.previous != null) {
+            timer.previous.next = timer.next;
+        } else {
+            slots[timer.slot] = timer.next;
+        }
+        if (timer.next != null) {
+            timer.next.previous = timer.previous;
+        }
+        timer.previous = null;
+        timer.next = null;
+    }
+}
@@ -0,0 +1,228 @@
+//
+// Copyright (c) Microsoft Corporation. All rights reserved.
+//
+
+package com.microsoft.romanapp.core.simulator;
+
+import com.microsoft.romanapp.core.DeviceKind;
+import com.microsoft.romanapp.core.DiscoveryBackend;
+import com.microsoft.romanapp.core.DiscoveryListener;
+import com.microsoft.romanapp.core.LaunchBackend;
+import com.microsoft.romanapp.core.LaunchCallback;
+import com.microsoft.romanapp.core.LaunchStatus;
+import com.microsoft.romanapp.core.RemoteDevice;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Local stand-in for the connected devices discovery and launcher, for load tests without network or MSA.
+ *
+ * A fleet of synthetic devices is added, then churned with updates and removals at the configured
+ * rates; removed devices come back at the add rate. Launches complete after a configurable latency
+ * with a configurable status distribution. The fleet is built once, a later start discovers the
+ * devices again as they were left by the previous run.
+ *
+ * Discovery events are drawn from a seeded Random, and each tick of TICK_MS applies the events due
+ * in TICK_MS of simulated time however late the tick runs, so a run with the same config produces
+ * the same sequence of events. Launches draw from a Random of their own and do not disturb it.
+ * With more than one callback thread the listener may still receive the events in a different order.
+ */
+public class SimulatedBackend implements DiscoveryBackend, LaunchBackend {
+    private static final long TICK_MS = 10;
+
+    private final SimulatorConfig config;
+    private final ScheduledExecutorService scheduler;
+    private final ExecutorService callbacks;
+
+    // guarded by this
+    private final Random random;
+    private final Random launchRandom;
+    private final List<SimulatedDevice> present = new ArrayList<>();
+    private final List<SimulatedDevice> absent = new ArrayList<>();
+    private DiscoveryListener listener;
+    private ScheduledFuture<?> ticker;
+    private double pendingAdds;
+    private double pendingUpdates;
+    private double pendingRemoves;
+    private int renames = 0;
+
+    public SimulatedBackend(SimulatorConfig config) {
+        this.config = config;
+        this.random = new Random(config.getSeed());
+        this.launchRandom = new Random(~config.getSeed());
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(namedThreads("simulator-events"));
+        this.callbacks = Executors.newFixedThreadPool(config.getCallbackThreads(), namedThreads("simulator-callbacks"));
+        DeviceKind[] kinds = DeviceKind.values();
+        for (int i = 0; i < config.getDeviceCount(); i++) {
+            absent.add(new SimulatedDevice("sim-" + i, "Device " + i,
+                    kinds[random.nextInt(kinds.length)], random.nextBoolean()));
+        }
+    }
+
+    @Override
+    public synchronized void start(DiscoveryListener listener) {
+        stop();
+        this.listener = listener;
+        // the new listener has seen none of the devices yet
+        absent.addAll(present);
+        present.clear();
+        pendingAdds = 0;
+        pendingUpdates = 0;
+        pendingRemoves = 0;
+        if (config.getAddsPerSecond() <= 0) {
+            while (!absent.isEmpty()) {
+                addOne();
+            }
+        }
+        ticker = scheduler.scheduleAtFixedRate(new Runnable() {
+            @Override
+            public void run() {
+                tick();
+            }
+        }, TICK_MS, TICK_MS, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (ticker != null) {
+            ticker.cancel(false);
+            ticker = null;
+        }
+        listener = null;
+    }
+
+    /**
+     * Stops discovery and releases the threads, the backend cannot be used afterwards.
+     */
+    public void shutdown() {
+        stop();
+        scheduler.shutdownNow();
+        callbacks.shutdown();
+    }
+
+    @Override
+    public void launchUri(RemoteDevice device, String uri, final LaunchCallback callback) {
+        final LaunchStatus status;
+        final long delayMs;
+        synchronized (this) {
+            status = sampleStatus();
+            long jitter = config.getLaunchLatencyJitterMs();
+            long offset = jitter > 0 ? (long) ((launchRandom.nextDouble() * 2 - 1) * jitter) : 0;
+            delayMs = Math.max(0, config.getLaunchLatencyMs() + offset);
+        }
+        scheduler.schedule(new Runnable() {
+            @Override
+            public void run() {
+                callbacks.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        callback.onCompleted(status);
+                    }
+                });
+            }
+        }, delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    private synchronized void tick() {
+        if (listener == null) {
+            return;
+        }
+        // simulated time, so that a late tick does not change how many events it applies
+        if (config.getAddsPerSecond() > 0) {
+            pendingAdds += config.getAddsPerSecond() * TICK_MS / 1000;
+        } else {
+            // the whole fleet comes back immediately
+            pendingAdds = absent.size();
+        }
+        pendingUpdates += config.getUpdatesPerSecond() * TICK_MS / 1000;
+        pendingRemoves += config.getRemovesPerSecond() * TICK_MS / 1000;
+        for (; pendingAdds >= 1 && !absent.isEmpty(); pendingAdds--) {
+            addOne();
+        }
+        for (; pendingUpdates >= 1 && !present.isEmpty(); pendingUpdates--) {
+            updateOne();
+        }
+        for (; pendingRemoves >= 1 && !present.isEmpty(); pendingRemoves--) {
+            removeOne();
+        }
+        // do not bank events while there is nothing to apply them to
+        pendingAdds = absent.isEmpty() ? 0 : pendingAdds;
+        pendingUpdates = present.isEmpty() ? 0 : pendingUpdates;
+        pendingRemoves = present.isEmpty() ? 0 : pendingRemoves;
+    }
+
+    private void addOne() {
+        final SimulatedDevice device = absent.remove(random.nextInt(absent.size()));
+        present.add(device);
+        final DiscoveryListener target = listener;
+        callbacks.execute(new Runnable() {
+            @Override
+            public void run() {
+                target.onDeviceAdded(device);
+            }
+        });
+    }
+
+    private void updateOne() {
+        int index = random.nextInt(present.size());
+        SimulatedDevice old = present.get(index);
+        // updates either rename the device or flip its proximity
+        final SimulatedDevice device = random.nextBoolean()
+                ? new SimulatedDevice(old.getId(), "Device " + old.getId().substring(4) + " r" + (++renames),
+                        old.getKind(), old.isAvailableByProximity())
+                : new SimulatedDevice(old.getId(), old.getDisplayName(), old.getKind(), !old.isAvailableByProximity());
+        present.set(index, device);
+        final DiscoveryListener target = listener;
+        callbacks.execute(new Runnable() {
+            @Override
+            public void run() {
+                target.onDeviceUpdated(device);
+            }
+        });
+    }
+
+    private void removeOne() {
+        final SimulatedDevice device = present.remove(random.nextInt(present.size()));
+        absent.add(device);
+        final DiscoveryListener target = listener;
+        callbacks.execute(new Runnable() {
+            @Override
+            public void run() {
+                target.onDeviceRemoved(device.getId());
+            }
+        });
+    }
+
+    private LaunchStatus sampleStatus() {
+        double sample = launchRandom.nextDouble();
+        for (Map.Entry<LaunchStatus, Double> entry : config.getFailureRates().entrySet()) {
+            sample -= entry.getValue();
+            if (sample < 0) {
+                return entry.getKey();
+            }
+        }
+        return LaunchStatus.SUCCESS;
+    }
+
+    private static ThreadFactory namedThreads(final String name) {
+        return new ThreadFactory() {
+            private int count = 0;
+
+            @Override
+            public synchronized Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, name + "-" + (count++));
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+    }
+}
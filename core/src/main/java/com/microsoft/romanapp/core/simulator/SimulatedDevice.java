@@ -0,0 +1,45 @@
+//
+// Copyright (c) Microsoft Corporation. All rights reserved.
+//
+
+package com.microsoft.romanapp.core.simulator;
+
+import com.microsoft.romanapp.core.DeviceKind;
+import com.microsoft.romanapp.core.RemoteDevice;
+
+/**
+ * Immutable synthetic remote system, an update is reported as a new instance with the same id.
+ */
+public final class SimulatedDevice implements RemoteDevice {
+    private final String id;
+    private final String displayName;
+    private final DeviceKind kind;
+    private final boolean isAvailableByProximity;
+
+    public SimulatedDevice(String id, String displayName, DeviceKind kind, boolean isAvailableByProximity) {
+        this.id = id;
+        this.displayName = displayName;
+        this.kind = kind;
+        this.isAvailableByProximity = isAvailableByProximity;
+    }
+
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    @Override
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    @Override
+    public DeviceKind getKind() {
+        return kind;
+    }
+
+    @Override
+    public boolean isAvailableByProximity() {
+        return isAvailableByProximity;
+    }
+}
@@ -0,0 +1,131 @@
+//
+// Copyright (c) Microsoft Corporation. All rights reserved.
+//
+
+package com.microsoft.romanapp.core.simulator;
+
+import com.microsoft.romanapp.core.LaunchStatus;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Settings of a SimulatedBackend, created with a Builder.
+ */
+public final class SimulatorConfig {
+    private final int deviceCount;
+    private final double addsPerSecond;
+    private final double updatesPerSecond;
+    private final double removesPerSecond;
+    private final int callbackThreads;
+    private final long launchLatencyMs;
+    private final long launchLatencyJitterMs;
+    private final Map<LaunchStatus, Double> failureRates;
+    private final long seed;
+
+    private SimulatorConfig(Builder builder) {
+        deviceCount = builder.deviceCount;
+        addsPerSecond = builder.addsPerSecond;
+        updatesPerSecond = builder.updatesPerSecond;
+        removesPerSecond = builder.removesPerSecond;
+        callbackThreads = builder.callbackThreads;
+        launchLatencyMs = builder.launchLatencyMs;
+        launchLatencyJitterMs = builder.launchLatencyJitterMs;
+        failureRates = Collections.unmodifiableMap(new EnumMap<>(builder.failureRates));
+        seed = builder.seed;
+    }
+
+    /** Number of synthetic devices in the fleet. */
+    public int getDeviceCount() { return deviceCount; }
+
+    /** Rate at which absent devices are added, 0 or less adds the whole fleet at once. */
+    public double getAddsPerSecond() { return addsPerSecond; }
+
+    public double getUpdatesPerSecond() { return updatesPerSecond; }
+
+    public double getRemovesPerSecond() { return removesPerSecond; }
+
+    /** Number of threads that deliver discovery and launch callbacks. */
+    public int getCallbackThreads() { return callbackThreads; }
+
+    public long getLaunchLatencyMs() { return launchLatencyMs; }
+
+    /** Launch latency is uniformly spread over [latency - jitter, latency + jitter]. */
+    public long getLaunchLatencyJitterMs() { return launchLatencyJitterMs; }
+
+    /** Probability of each failing status per launch, the remainder succeeds. */
+    public Map<LaunchStatus, Double> getFailureRates() { return failureRates; }
+
+    public long getSeed() { return seed; }
+
+    public static final class Builder {
+        private int deviceCount = 1000;
+        private double addsPerSecond = 0;
+        private double updatesPerSecond = 5;
+        private double removesPerSecond = 1;
+        private int callbackThreads = 1;
+        private long launchLatencyMs = 300;
+        private long launchLatencyJitterMs = 200;
+        private final Map<LaunchStatus, Double> failureRates = new EnumMap<>(LaunchStatus.class);
+        private long seed = 42;
+
+        public Builder setDeviceCount(int deviceCount) {
+            this.deviceCount = deviceCount;
+            return this;
+        }
+
+        public Builder setAddsPerSecond(double addsPerSecond) {
+            this.addsPerSecond = addsPerSecond;
+            return this;
+        }
+
+        public Builder setUpdatesPerSecond(double updatesPerSecond) {
+            this.updatesPerSecond = updatesPerSecond;
+            return this;
+        }
+
+        public Builder setRemovesPerSecond(double removesPerSecond) {
+            this.removesPerSecond = removesPerSecond;
+            return this;
+        }
+
+        public Builder setCallbackThreads(int callbackThreads) {
+            this.callbackThreads = callbackThreads;
+            return this;
+        }
+
+        public Builder setLaunchLatency(long latencyMs, long jitterMs) {
+            this.launchLatencyMs = latencyMs;
+            this.launchLatencyJitterMs = jitterMs;
+            return this;
+        }
+
+        public Builder setFailureRate(LaunchStatus status, double probability) {
+            if (status == LaunchStatus.SUCCESS) {
+                throw new IllegalArgumentException("SUCCESS is whatever no failure claims");
+            }
+            failureRates.put(status, probability);
+            return this;
+        }
+
+        public Builder setSeed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        public SimulatorConfig getResult() {
+            if (deviceCount < 0 || callbackThreads < 1) {
+                throw new IllegalArgumentException("deviceCount must be positive and callbackThreads at least 1");
+            }
+            double total = 0;
+            for (double probability : failureRates.values()) {
+                total += probability;
+            }
+            if (total > 1) {
+                throw new IllegalArgumentException("Failure rates add up to more than 1");
+            }
+            return new SimulatorConfig(this);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+//
+// Copyright (c) Microsoft Corporation. All rights reserved.
+//
+
+package com.microsoft.romanapp.core.trace;
+
+import com.microsoft.romanapp.core.BackendException;
+import com.microsoft.romanapp.core.DiscoveryBackend;
+import com.microsoft.romanapp.core.DiscoveryListener;
+import com.microsoft.romanapp.core.RemoteDevice;
+
+import java.io.IOException;
+
+/**
+ * DiscoveryBackend that writes every event of another backend to a trace while a writer is set,
+ * on the thread that delivers it and before passing it on. A failed write stops the recording,
+ * discovery itself goes on.
+ */
+public class RecordingDiscoveryBackend implements DiscoveryBackend {
+    private final DiscoveryBackend delegate;
+    private volatile TraceWriter writer = null;
+
+    public RecordingDiscoveryBackend(DiscoveryBackend delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * Starts recording to the writer, or stops with null. The caller closes the writer.
+     */
+    public void setWriter(TraceWriter writer) {
+        this.writer = writer;
+    }
+
+    public TraceWriter getWriter() {
+        return writer;
+    }
+
+    @Override
+    public void start(final DiscoveryListener listener) throws BackendException {
+        delegate.start(new DiscoveryListener() {
+            @Override
+            public void onDeviceAdded(RemoteDevice device) {
+                TraceWriter current = writer;
+                if (current != null) {
+                    try {
+                        current.added(device);
+                    } catch (IOException e) {
+                        fail(current, e);
+                    }
+                }
+                listener.onDeviceAdded(device);
+            }
+
+            @Override
+            public void onDeviceUpdated(RemoteDevice device) {
+                TraceWriter current = writer;
+                if (current != null) {
+                    try {
+                        current.updated(device);
+                    } catch (IOException e) {
+                        fail(current, e);
+                    }
+                }
+                listener.onDeviceUpdated(device);
+            }
+
+            @Override
+            public void onDeviceRemoved(String id) {
+                TraceWriter current = writer;
+                if (current != null) {
+                    try {
+                        current.removed(id);
+                    } catch (IOException e) {
+                        fail(current, e);
+                    }
+                }
+                listener.onDeviceRemoved(id);
+            }
+        });
+    }
+
+    @Override
+    public void stop() {
+        delegate.stop();
+        TraceWriter current = writer;
+        if (current != null) {
+            // a paused discovery may not report anything for a while
+            try {
+                current.flush();
+            } catch (IOException e) {
+                fail(current, e);
+            }
+        }
+    }
+
+    private synchronized void fail(TraceWriter failed, IOException e) {
+        e.printStackTrace();
+        if (writer == failed) {
+            writer = null;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+//
+// Copyright (c) Microsoft Corporation. All rights reserved.
+//
+
+package com.microsoft.romanapp.core.trace;
+
+import com.microsoft.romanapp.core.DiscoveryListener;
+import com.microsoft.romanapp.core.RemoteDevice;
+
+/**
+ * One discovery callback read back from a trace.
+ */
+public final class TraceEvent {
+
+    public enum Type {
+        ADDED,
+        UPDATED,
+        REMOVED
+    }
+
+    private final Type type;
+    private final long timeMicros;
+    private final long threadId;
+    private final String deviceId;
+    private final RemoteDevice device;
+
+    TraceEvent(Type type, long timeMicros, long threadId, String deviceId, RemoteDevice device) {
+        this.type = type;
+        this.timeMicros = timeMicros;
+        this.threadId = threadId;
+        this.deviceId = deviceId;
+        this.device = device;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Microseconds since the recording was started.
+     */
+    public long getTimeMicros() {
+        return timeMicros;
+    }
+
+    /**
+     * Id of the thread that delivered the event when it was recorded.
+     */
+    public long getThreadId() {
+        return threadId;
+    }
+
+    public String getDeviceId() {
+        return deviceId;
+    }
+
+    /**
+     * The reported device, or null for a removal.
+     */
+    public RemoteDevice getDevice() {
+        return device;
+    }
+
+    /**
+     * Delivers the event to the listener as the recorded backend did.
+     */
+    public void dispatchTo(DiscoveryListener listener) {
+        switch (type) {
+            case ADDED:
+                listener.onDeviceAdded(device);
+                break;
+            case UPDATED:
+                listener.onDeviceUpdated(device);
+                break;
+            case REMOVED:
+                listener.onDeviceRemoved(deviceId);
+                break;
+        }
+    }
+}
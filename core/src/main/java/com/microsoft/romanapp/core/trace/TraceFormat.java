@@ -0,0 +1,56 @@
+//
+// Copyright (c) Microsoft Corporation. All rights reserved.
+//
+
+package com.microsoft.romanapp.core.trace;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Layout of a discovery trace file, shared by TraceWriter and TraceReader.
+ *
+ * A header (magic, version, wall clock start time in ms) is followed by one record per event:
+ *   op             byte, see OP_*
+ *   delta          varint, microseconds since the previous event
+ *   thread         varint, id of the thread that delivered the event
+ *   device id      string reference
+ *   for adds and updates:
+ *     name         string reference
+ *     flags        byte, kind ordinal << 1 | available by proximity
+ * A string reference is a varint, 0 followed by the string in modified UTF-8 the first time
+ * a string appears, or 1 + the index of its first appearance afterwards. Records are only
+ * ever appended, so a trace cut short by a crash is read up to its last whole record.
+ */
+final class TraceFormat {
+    static final int MAGIC = 0x524f4d54; // "ROMT"
+    static final int VERSION = 1;
+
+    static final byte OP_ADDED = 1;
+    static final byte OP_UPDATED = 2;
+    static final byte OP_REMOVED = 3;
+
+    private TraceFormat() {
+    }
+
+    static void writeVarint(DataOutput out, long value) throws IOException {
+        while ((value & ~0x7fL) != 0) {
+            out.writeByte((int) (value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    static long readVarint(DataInput in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.readByte();
+            value |= (long) (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint in trace");
+    }
+}
@@ -0,0 +1,113 @@
+//
+// Copyright (c) Microsoft Corporation. All rights reserved.
+//
+
+package com.microsoft.romanapp.core.trace;
+
+import com.microsoft.romanapp.core.DeviceKind;
+import com.microsoft.romanapp.core.RemoteDevice;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads back the events of a trace written by TraceWriter, in recording order. Not thread safe.
+ */
+public class TraceReader implements Closeable {
+    private static final DeviceKind[] KINDS = DeviceKind.values();
+
+    private final DataInputStream in;
+    private final long startTimeMs;
+    private final List<String> strings = new ArrayList<>();
+    private long timeMicros = 0;
+
+    public TraceReader(InputStream stream) throws IOException {
+        in = new DataInputStream(new BufferedInputStream(stream));
+        if (in.readInt() != TraceFormat.MAGIC) {
+            throw new IOException("Not a discovery trace");
+        }
+        int version = in.readInt();
+        if (version != TraceFormat.VERSION) {
+            throw new IOException("Unsupported discovery trace version " + version);
+        }
+        startTimeMs = in.readLong();
+    }
+
+    /**
+     * Wall clock time in milliseconds when the recording was started.
+     */
+    public long getStartTimeMs() {
+        return startTimeMs;
+    }
+
+    /**
+     * Returns the next event, or null at the end of the trace. A record cut short
+     * at the end, as left by a recording that was killed, is treated as the end.
+     */
+    public TraceEvent next() throws IOException {
+        int op;
+        try {
+            op = in.read();
+            if (op < 0) {
+                return null;
+            }
+            timeMicros += TraceFormat.readVarint(in);
+            long threadId = TraceFormat.readVarint(in);
+            String id = readString();
+            switch (op) {
+                case TraceFormat.OP_ADDED:
+                case TraceFormat.OP_UPDATED:
+                    String name = readString();
+                    int flags = in.readUnsignedByte();
+                    if (flags >> 1 >= KINDS.length) {
+                        throw new IOException("Unknown device kind in trace");
+                    }
+                    RemoteDevice device = new TracedDevice(id, name, KINDS[flags >> 1], (flags & 1) != 0);
+                    return new TraceEvent(op == TraceFormat.OP_ADDED ? TraceEvent.Type.ADDED : TraceEvent.Type.UPDATED,
+                            timeMicros, threadId, id, device);
+                case TraceFormat.OP_REMOVED:
+                    return new TraceEvent(TraceEvent.Type.REMOVED, timeMicros, threadId, id, null);
+                default:
+                    throw new IOException("Unknown discovery trace record type " + op);
+            }
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Reads every remaining event.
+     */
+    public List<TraceEvent> readAll() throws IOException {
+        List<TraceEvent> events = new ArrayList<>();
+        TraceEvent event;
+        while ((event = next()) != null) {
+            events.add(event);
+        }
+        return events;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private String readString() throws IOException {
+        long reference = TraceFormat.readVarint(in);
+        if (reference == 0) {
+            String value = in.readUTF();
+            strings.add(value);
+            return value;
+        }
+        if (reference > strings.size()) {
+            throw new IOException("Invalid string reference in trace");
+        }
+        return strings.get((int) reference - 1);
+    }
+}
@@ -0,0 +1,66 @@
+//
+// Copyright (c) Microsoft Corporation. All rights reserved.
+//
+
+package com.microsoft.romanapp.core.trace;
+
+import com.microsoft.romanapp.core.BackendException;
+import com.microsoft.romanapp.core.DiscoveryBackend;
+import com.microsoft.romanapp.core.DiscoveryListener;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+
+/**
+ * DiscoveryBackend that plays back a recorded trace file instead of discovering anything.
+ * Every start replays the trace from the beginning on a thread of its own, see TraceReplayer.
+ */
+public class TraceReplayBackend implements DiscoveryBackend {
+    private final File file;
+    private final double speed;
+    private Thread thread = null;
+
+    public TraceReplayBackend(File file, double speed) {
+        this.file = file;
+        this.speed = speed;
+    }
+
+    @Override
+    public synchronized void start(final DiscoveryListener listener) throws BackendException {
+        stop();
+        final TraceReader reader;
+        try {
+            reader = new TraceReader(new FileInputStream(file));
+        } catch (IOException e) {
+            throw new BackendException("Could not open trace " + file, e);
+        }
+        thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    new TraceReplayer(reader, speed).replay(listener);
+                } catch (IOException e) {
+                    e.printStackTrace();
+                } catch (InterruptedException e) {
+                    // stopped
+                } finally {
+                    try {
+                        reader.close();
+                    } catch (IOException e) {
+                        e.printStackTrace();
+                    }
+                }
+            }
+        }, "trace-replay");
+        thread.start();
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (thread != null) {
+            thread.interrupt();
+            thread = null;
+        }
+    }
+}
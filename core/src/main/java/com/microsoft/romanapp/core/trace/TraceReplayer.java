@@ -0,0 +1,56 @@
+//
+// Copyright (c) Microsoft Corporation. All rights reserved.
+//
+
+package com.microsoft.romanapp.core.trace;
+
+import com.microsoft.romanapp.core.DiscoveryListener;
+
+import java.io.IOException;
+
+/**
+ * Feeds the events of a trace to a DiscoveryListener on the calling thread, in recording order.
+ *
+ * With a speed of 1 the events are spaced as they were recorded, with 10 ten times closer,
+ * and with 0 or less they are delivered back to back. The recorded thread ids are not
+ * reproduced, every event is delivered on the replaying thread.
+ */
+public class TraceReplayer {
+    private final TraceReader reader;
+    private final double speed;
+
+    public TraceReplayer(TraceReader reader, double speed) {
+        this.reader = reader;
+        this.speed = speed;
+    }
+
+    /**
+     * Replays the rest of the trace, returns the number of events delivered.
+     *
+     * @throws InterruptedException if the thread is interrupted while waiting for the next event
+     */
+    public int replay(DiscoveryListener listener) throws IOException, InterruptedException {
+        long startNanos = System.nanoTime();
+        long firstMicros = -1;
+        int events = 0;
+        TraceEvent event;
+        while ((event = reader.next()) != null) {
+            if (speed > 0) {
+                if (firstMicros < 0) {
+                    firstMicros = event.getTimeMicros();
+                }
+                long dueNanos = startNanos + (long) ((event.getTimeMicros() - firstMicros) * 1000 / speed);
+                long waitNanos = dueNanos - System.nanoTime();
+                if (waitNanos > 0) {
+                    Thread.sleep(waitNanos / 1000000, (int) (waitNanos % 1000000));
+                }
+            }
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            event.dispatchTo(listener);
+            events++;
+        }
+        return events;
+    }
+}
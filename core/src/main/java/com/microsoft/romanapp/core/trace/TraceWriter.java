@@ -0,0 +1,88 @@
+//
+// Copyright (c) Microsoft Corporation. All rights reserved.
+//
+
+package com.microsoft.romanapp.core.trace;
+
+import com.microsoft.romanapp.core.RemoteDevice;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Appends discovery events to a trace, see TraceFormat for the layout.
+ *
+ * An event costs a few bytes once its device id and name have been seen, written to a buffer
+ * on the calling thread. Call flush to push the buffer to the stream. All methods are thread
+ * safe, events are recorded in the order the calls take the lock.
+ */
+public class TraceWriter implements Closeable {
+    private final DataOutputStream out;
+    private final Map<String, Integer> strings = new HashMap<>();
+    private long lastNanos;
+    private int events = 0;
+
+    public TraceWriter(OutputStream stream) throws IOException {
+        out = new DataOutputStream(new BufferedOutputStream(stream));
+        out.writeInt(TraceFormat.MAGIC);
+        out.writeInt(TraceFormat.VERSION);
+        out.writeLong(System.currentTimeMillis());
+        lastNanos = System.nanoTime();
+    }
+
+    public void added(RemoteDevice device) throws IOException {
+        write(TraceFormat.OP_ADDED, device.getId(), device);
+    }
+
+    public void updated(RemoteDevice device) throws IOException {
+        write(TraceFormat.OP_UPDATED, device.getId(), device);
+    }
+
+    public void removed(String id) throws IOException {
+        write(TraceFormat.OP_REMOVED, id, null);
+    }
+
+    public synchronized int getEvents() {
+        return events;
+    }
+
+    public synchronized void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        out.close();
+    }
+
+    private synchronized void write(byte op, String id, RemoteDevice device) throws IOException {
+        long deltaMicros = Math.max(0, System.nanoTime() - lastNanos) / 1000;
+        out.writeByte(op);
+        TraceFormat.writeVarint(out, deltaMicros);
+        TraceFormat.writeVarint(out, Thread.currentThread().getId());
+        writeString(id);
+        if (device != null) {
+            writeString(device.getDisplayName());
+            out.writeByte(device.getKind().ordinal() << 1 | (device.isAvailableByProximity() ? 1 : 0));
+        }
+        // the sub-microsecond remainder is carried over, so the deltas add up to the real time
+        lastNanos += deltaMicros * 1000;
+        events++;
+    }
+
+    private void writeString(String value) throws IOException {
+        Integer index = strings.get(value);
+        if (index != null) {
+            TraceFormat.writeVarint(out, index + 1);
+            return;
+        }
+        TraceFormat.writeVarint(out, 0);
+        out.writeUTF(value);
+        strings.put(value, strings.size());
+    }
+}
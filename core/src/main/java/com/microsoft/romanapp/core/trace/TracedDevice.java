@@ -0,0 +1,45 @@
+//
+// Copyright (c) Microsoft Corporation. All rights reserved.
+//
+
+package com.microsoft.romanapp.core.trace;
+
+import com.microsoft.romanapp.core.DeviceKind;
+import com.microsoft.romanapp.core.RemoteDevice;
+
+/**
+ * A device as it was reported when the trace was recorded. It cannot be launched on.
+ */
+final class TracedDevice implements RemoteDevice {
+    private final String id;
+    private final String displayName;
+    private final DeviceKind kind;
+    private final boolean isAvailableByProximity;
+
+    TracedDevice(String id, String displayName, DeviceKind kind, boolean isAvailableByProximity) {
+        this.id = id;
+        this.displayName = displayName;
+        this.kind = kind;
+        this.isAvailableByProximity = isAvailableByProximity;
+    }
+
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    @Override
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    @Override
+    public DeviceKind getKind() {
+        return kind;
+    }
+
+    @Override
+    public boolean isAvailableByProximity() {
+        return isAvailableByProximity;
+    }
+}
@@ -0,0 +1,175 @@
+//
+// Copyright (c) Microsoft Corporation. All rights reserved.
+//
+
+package com.microsoft.romanapp.core;
+
+import com.microsoft.romanapp.core.simulator.SimulatedDevice;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class DedupingLaunchBackendTest {
+    private static final long WINDOW_MS = 2000;
+    private static final String URI = "https://bing.com";
+
+    private final RemoteDevice desktop = new SimulatedDevice("1", "DESKTOP-1A2B", DeviceKind.DESKTOP, false);
+    private final RemoteDevice xbox = new SimulatedDevice("2", "Xbox", DeviceKind.XBOX, false);
+
+    private long now;
+    private boolean refuse;
+    // callbacks of the launches the test has not completed yet
+    private List<LaunchCallback> running;
+    private int launches;
+    private List<String> events;
+    private DedupingLaunchBackend backend;
+
+    @Before
+    public void setUp() {
+        now = 0;
+        refuse = false;
+        running = new ArrayList<>();
+        launches = 0;
+        events = new ArrayList<>();
+        backend = backend(WINDOW_MS);
+    }
+
+    private DedupingLaunchBackend backend(long windowMs) {
+        LaunchBackend manual = new LaunchBackend() {
+            @Override
+            public void launchUri(RemoteDevice device, String uri, LaunchCallback callback) throws BackendException {
+                launches++;
+                if (refuse) {
+                    throw new BackendException("Could not start the launch");
+                }
+                running.add(callback);
+            }
+        };
+        DedupingLaunchBackend backend = new DedupingLaunchBackend(manual, windowMs, new Clock() {
+            @Override
+            public long now() {
+                return now;
+            }
+        });
+        backend.addListener(new DedupingLaunchBackend.Listener() {
+            @Override
+            public void onJoined(RemoteDevice device, String uri, int waiting) {
+                events.add("joined " + waiting);
+            }
+
+            @Override
+            public void onSuppressed(RemoteDevice device, String uri, long sinceMs) {
+                events.add("suppressed " + sinceMs);
+            }
+        });
+        return backend;
+    }
+
+    private LaunchCallback record(final String name) {
+        return new LaunchCallback() {
+            @Override
+            public void onCompleted(LaunchStatus status) {
+                events.add(name + " " + status);
+            }
+        };
+    }
+
+    private void completeAll(LaunchStatus status) {
+        List<LaunchCallback> callbacks = new ArrayList<>(running);
+        running.clear();
+        for (LaunchCallback callback : callbacks) {
+            callback.onCompleted(status);
+        }
+    }
+
+    @Test
+    public void identicalLaunchesShareOneCall() throws BackendException {
+        backend.launchUri(desktop, URI, record("a"));
+        backend.launchUri(desktop, URI, record("b"));
+        backend.launchUri(desktop, URI, record("c"));
+
+        assertEquals(1, launches);
+        assertEquals(1, backend.getInFlightCount());
+        completeAll(LaunchStatus.APP_UNAVAILABLE);
+
+        assertEquals(0, backend.getInFlightCount());
+        assertEquals(Arrays.asList("joined 2", "joined 3",
+                "a APP_UNAVAILABLE", "b APP_UNAVAILABLE", "c APP_UNAVAILABLE"), events);
+    }
+
+    @Test
+    public void differentDevicesOrUrisAreSeparateLaunches() throws BackendException {
+        backend.launchUri(desktop, URI, record("a"));
+        backend.launchUri(xbox, URI, record("b"));
+        backend.launchUri(desktop, "https://microsoft.com", record("c"));
+
+        assertEquals(3, launches);
+        assertEquals(3, backend.getInFlightCount());
+    }
+
+    @Test
+    public void repeatedSuccessIsSuppressedWithinWindow() throws BackendException {
+        backend.launchUri(desktop, URI, record("a"));
+        completeAll(LaunchStatus.SUCCESS);
+        now = WINDOW_MS - 1;
+
+        backend.launchUri(desktop, URI, record("b"));
+
+        assertEquals(1, launches);
+        assertEquals(Arrays.asList("a SUCCESS", "suppressed " + (WINDOW_MS - 1), "b SUCCESS"), events);
+    }
+
+    @Test
+    public void successIsLaunchedAgainAfterWindow() throws BackendException {
+        backend.launchUri(desktop, URI, record("a"));
+        completeAll(LaunchStatus.SUCCESS);
+        now = WINDOW_MS;
+
+        backend.launchUri(desktop, URI, record("b"));
+
+        assertEquals(2, launches);
+    }
+
+    @Test
+    public void failuresAreNotSuppressed() throws BackendException {
+        backend.launchUri(desktop, URI, record("a"));
+        completeAll(LaunchStatus.REMOTE_SYSTEM_UNAVAILABLE);
+
+        backend.launchUri(desktop, URI, record("b"));
+
+        assertEquals(2, launches);
+    }
+
+    @Test
+    public void zeroWindowOnlySharesLaunchesInFlight() throws BackendException {
+        backend = backend(0);
+        backend.launchUri(desktop, URI, record("a"));
+        backend.launchUri(desktop, URI, record("b"));
+        completeAll(LaunchStatus.SUCCESS);
+
+        backend.launchUri(desktop, URI, record("c"));
+
+        assertEquals(2, launches);
+    }
+
+    @Test
+    public void refusedLaunchThrowsAndLeavesNothingInFlight() {
+        refuse = true;
+        try {
+            backend.launchUri(desktop, URI, record("a"));
+            fail("The launch should have thrown");
+        } catch (BackendException e) {
+            // expected
+        }
+
+        assertEquals(0, backend.getInFlightCount());
+        assertEquals(new ArrayList<String>(), events);
+    }
+}
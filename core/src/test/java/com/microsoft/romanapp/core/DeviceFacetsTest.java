@@ -0,0 +1,202 @@
+//
+// Copyright (c) Microsoft Corporation. All rights reserved.
+//
+
+package com.microsoft.romanapp.core;
+
+import com.microsoft.romanapp.core.simulator.SimulatedDevice;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class DeviceFacetsTest {
+    private DeviceFacets facets;
+
+    @Before
+    public void setUp() {
+        facets = new DeviceFacets();
+    }
+
+    private static DeviceRecord device(String id, String name, DeviceKind kind, boolean proximal) {
+        return new DeviceRecord(new SimulatedDevice(id, name, kind, proximal));
+    }
+
+    private static DeviceRecord cached(String id, String name, DeviceKind kind) {
+        return new DeviceRecord(id, name, kind, false, 0);
+    }
+
+    private List<String> select(DeviceQuery query) {
+        List<String> ids = facets.select(query);
+        Collections.sort(ids);
+        return ids;
+    }
+
+    @Test
+    public void selectsByEveryFacet() {
+        facets.put(device("1", "Desktop", DeviceKind.DESKTOP, true));
+        facets.put(device("2", "Xbox", DeviceKind.XBOX, false));
+        facets.put(cached("3", "Phone", DeviceKind.PHONE));
+
+        assertEquals(Arrays.asList("1", "2", "3"), select(new DeviceQuery(DiscoveryType.ALL, SystemKind.ALL)));
+        assertEquals(Arrays.asList("1"), select(new DeviceQuery(DiscoveryType.PROXIMAL, SystemKind.ALL)));
+        assertEquals(Arrays.asList("2"), select(new DeviceQuery(DiscoveryType.CLOUD, SystemKind.XBOX)));
+        assertEquals(Arrays.asList("1", "2"),
+                select(new DeviceQuery(DiscoveryType.ALL, SystemKind.ALL, StatusType.AVAILABLE, "")));
+    }
+
+    @Test
+    public void putUpdatesKnownDevice() {
+        facets.put(device("1", "Desktop", DeviceKind.DESKTOP, false));
+        facets.put(device("1", "Desktop", DeviceKind.DESKTOP, true));
+
+        assertEquals(1, facets.size());
+        assertEquals(Arrays.asList("1"), select(new DeviceQuery(DiscoveryType.PROXIMAL, SystemKind.ALL)));
+    }
+
+    @Test
+    public void removedSlotIsReused() {
+        facets.put(device("1", "Desktop", DeviceKind.DESKTOP, true));
+        facets.put(device("2", "Xbox", DeviceKind.XBOX, true));
+        facets.remove("1");
+        facets.remove("unknown");
+        facets.put(device("3", "Phone", DeviceKind.PHONE, false));
+
+        assertEquals(2, facets.size());
+        assertEquals(Arrays.asList("2", "3"), select(new DeviceQuery(DiscoveryType.ALL, SystemKind.ALL)));
+        assertEquals(Arrays.asList("2"), select(new DeviceQuery(DiscoveryType.PROXIMAL, SystemKind.ALL)));
+        assertEquals(Collections.<String>emptyList(), select(new DeviceQuery(DiscoveryType.ALL, SystemKind.DESKTOP)));
+    }
+
+    @Test
+    public void nameQueryFollowsMatchingIds() {
+        facets.put(device("1", "Living Room Xbox", DeviceKind.XBOX, false));
+        facets.put(device("2", "Bedroom Xbox", DeviceKind.XBOX, false));
+        facets.setNameQuery(" living ", Arrays.asList("1", "unknown"));
+        // matched one by one once the query is set
+        facets.put(device("3", "Living Room PC", DeviceKind.DESKTOP, false));
+
+        assertEquals("living", facets.getNameQuery());
+        assertEquals(Arrays.asList("1", "3"),
+                select(new DeviceQuery(DiscoveryType.ALL, SystemKind.ALL, "living")));
+
+        facets.setNameQuery("", Collections.<String>emptySet());
+        assertEquals(Arrays.asList("1", "2", "3"), select(new DeviceQuery(DiscoveryType.ALL, SystemKind.ALL)));
+    }
+
+    @Test
+    public void countsEveryOption() {
+        facets.put(device("1", "Desktop", DeviceKind.DESKTOP, true));
+        facets.put(device("2", "Xbox", DeviceKind.XBOX, false));
+        facets.put(cached("3", "Phone", DeviceKind.PHONE));
+
+        DeviceFacets.Counts counts = facets.count(new DeviceQuery(DiscoveryType.PROXIMAL, SystemKind.ALL));
+
+        assertEquals(3, counts.get(DiscoveryType.ALL));
+        assertEquals(1, counts.get(DiscoveryType.PROXIMAL));
+        // the kinds are counted among the proximal devices
+        assertEquals(1, counts.get(SystemKind.ALL));
+        assertEquals(1, counts.get(SystemKind.DESKTOP));
+        assertEquals(0, counts.get(SystemKind.XBOX));
+        assertEquals(1, counts.get(StatusType.ANY));
+        assertEquals(1, counts.get(StatusType.AVAILABLE));
+    }
+
+    @Test
+    public void clearForgetsEverything() {
+        facets.put(device("1", "Desktop", DeviceKind.DESKTOP, true));
+        facets.clear();
+
+        assertEquals(0, facets.size());
+        assertEquals(DeviceFacets.Counts.EMPTY, facets.count(new DeviceQuery(DiscoveryType.ALL, SystemKind.ALL)));
+    }
+
+    @Test
+    public void agreesWithDeviceQuery() {
+        String[] names = {"Desktop", "Xbox One", "Living Room", "Phone", "Office PC"};
+        String[] nameQueries = {"", "living", "xbo", "offce"};
+        DeviceKind[] kinds = DeviceKind.values();
+        Random random = new Random(5);
+        Map<String, DeviceRecord> devices = new HashMap<>();
+        for (int step = 0; step < 500; step++) {
+            String id = String.valueOf(random.nextInt(60));
+            if (random.nextInt(4) == 0) {
+                devices.remove(id);
+                facets.remove(id);
+            } else {
+                String name = names[random.nextInt(names.length)];
+                DeviceKind kind = kinds[random.nextInt(kinds.length)];
+                DeviceRecord device = random.nextInt(3) == 0 ? cached(id, name, kind)
+                        : device(id, name, kind, random.nextBoolean());
+                if (random.nextInt(5) == 0) {
+                    device = device.asStale();
+                }
+                devices.put(id, device);
+                facets.put(device);
+            }
+            if (step % 25 != 0) {
+                continue;
+            }
+            for (String nameQuery : nameQueries) {
+                List<String> named = new ArrayList<>();
+                for (DeviceRecord device : devices.values()) {
+                    if (DeviceNameIndex.matches(device.getName(), nameQuery)) {
+                        named.add(device.getId());
+                    }
+                }
+                facets.setNameQuery(nameQuery, named);
+                for (DiscoveryType type : DiscoveryType.values()) {
+                    for (SystemKind systemKind : SystemKind.values()) {
+                        for (StatusType status : StatusType.values()) {
+                            DeviceQuery query = new DeviceQuery(type, systemKind, status, nameQuery);
+                            assertEquals(query.toString(), matching(devices, query),
+                                    new HashSet<>(facets.select(query)));
+                            assertCounts(devices, query, facets.count(query));
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private static HashSet<String> matching(Map<String, DeviceRecord> devices, DeviceQuery query) {
+        HashSet<String> ids = new HashSet<>();
+        for (DeviceRecord device : devices.values()) {
+            if (query.matches(device)) {
+                ids.add(device.getId());
+            }
+        }
+        return ids;
+    }
+
+    private static void assertCounts(Map<String, DeviceRecord> devices, DeviceQuery query, DeviceFacets.Counts counts) {
+        SystemKind systemKind = SystemKind.ALL;
+        for (SystemKind option : SystemKind.values()) {
+            if (option.toDeviceKind() == query.getKind()) {
+                systemKind = option;
+            }
+        }
+        for (DiscoveryType option : DiscoveryType.values()) {
+            DeviceQuery other = new DeviceQuery(option, systemKind, query.getStatus(), query.getNameQuery());
+            assertEquals(matching(devices, other).size(), counts.get(option));
+        }
+        for (SystemKind option : SystemKind.values()) {
+            DeviceQuery other = new DeviceQuery(query.getDiscoveryType(), option, query.getStatus(), query.getNameQuery());
+            assertEquals(matching(devices, other).size(), counts.get(option));
+        }
+        for (StatusType option : StatusType.values()) {
+            DeviceQuery other = new DeviceQuery(query.getDiscoveryType(), systemKind, option, query.getNameQuery());
+            assertEquals(matching(devices, other).size(), counts.get(option));
+        }
+    }
+}
@@ -0,0 +1,143 @@
+//
+// Copyright (c) Microsoft Corporation. All rights reserved.
+//
+
+package com.microsoft.romanapp.core;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class DeviceNameIndexTest {
+    private DeviceNameIndex index;
+
+    @Before
+    public void setUp() {
+        index = new DeviceNameIndex();
+        index.put("1", "DESKTOP-1A2B");
+        index.put("2", "Living Room Xbox");
+        index.put("3", "Anna's Phone");
+    }
+
+    private static Set<String> ids(String... ids) {
+        return new HashSet<>(Arrays.asList(ids));
+    }
+
+    @Test
+    public void findsTokenPrefixes() {
+        assertEquals(ids("1"), index.search("desk"));
+        assertEquals(ids("1"), index.search("1a"));
+        assertEquals(ids("2"), index.search("ROOM"));
+        assertEquals(ids("3"), index.search("s"));
+    }
+
+    @Test
+    public void findsCompactName() {
+        assertEquals(ids("1"), index.search("desktop1"));
+        assertEquals(ids("2"), index.search("livingroom"));
+    }
+
+    @Test
+    public void everyTermMustMatch() {
+        assertEquals(ids("2"), index.search("living xbox"));
+        assertEquals(ids(), index.search("living phone"));
+    }
+
+    @Test
+    public void emptyQueryMatchesEverything() {
+        assertEquals(ids("1", "2", "3"), index.search("  - "));
+    }
+
+    @Test
+    public void longTermsMayBeOneEditAway() {
+        assertEquals(ids("1"), index.search("deks"));
+        assertEquals(ids("2"), index.search("lving"));
+        assertEquals(ids(), index.search("dsekt"));
+    }
+
+    @Test
+    public void shortTermsMustMatchExactly() {
+        assertEquals(ids(), index.search("dex"));
+        assertEquals(ids("2"), index.search("xbo"));
+    }
+
+    @Test
+    public void renameReplacesTokens() {
+        index.put("1", "Office PC");
+
+        assertEquals(ids(), index.search("desk"));
+        assertEquals(ids("1"), index.search("office"));
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    public void removeDropsDevice() {
+        index.remove("2");
+        index.remove("unknown");
+
+        assertEquals(ids(), index.search("xbox"));
+        assertEquals(ids("1", "3"), index.search(""));
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    public void sharedTokensSurviveRemoval() {
+        index.put("4", "Xbox One");
+        index.remove("2");
+
+        assertEquals(ids("4"), index.search("xbox"));
+    }
+
+    @Test
+    public void clearForgetsEverything() {
+        index.clear();
+
+        assertEquals(0, index.size());
+        assertEquals(Collections.<String>emptySet(), index.search(""));
+        assertEquals(Collections.<String>emptySet(), index.search("desk"));
+    }
+
+    @Test
+    public void matchesAgreesWithSearch() {
+        String[] parts = {"desk", "top", "xbox", "one", "phone", "anna", "1a2b", "pc", "room"};
+        String[] queries = {"", "d", "desk", "deks", "xbo", "xbxo", "one phone", "1a2", "deskt1",
+                "pohne", "room xbox", "toq"};
+        Random random = new Random(7);
+        index.clear();
+        String[] names = new String[200];
+        for (int i = 0; i < names.length; i++) {
+            StringBuilder name = new StringBuilder();
+            for (int j = random.nextInt(3) + 1; j > 0; j--) {
+                name.append(parts[random.nextInt(parts.length)]).append(random.nextBoolean() ? "-" : " ");
+            }
+            names[i] = name.toString().toUpperCase();
+            index.put(String.valueOf(i), names[i]);
+        }
+        for (String query : queries) {
+            Set<String> expected = new HashSet<>();
+            for (int i = 0; i < names.length; i++) {
+                if (DeviceNameIndex.matches(names[i], query)) {
+                    expected.add(String.valueOf(i));
+                }
+            }
+            assertEquals(query, expected, index.search(query));
+        }
+    }
+
+    @Test
+    public void matchesFollowsTheSameRules() {
+        assertTrue(DeviceNameIndex.matches("DESKTOP-1A2B", "desktop1"));
+        assertTrue(DeviceNameIndex.matches("DESKTOP-1A2B", "deks"));
+        assertFalse(DeviceNameIndex.matches("DESKTOP-1A2B", "dex"));
+        assertTrue(DeviceNameIndex.matches("DESKTOP-1A2B", ""));
+    }
+}
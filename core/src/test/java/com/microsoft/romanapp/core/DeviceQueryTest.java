@@ -0,0 +1,91 @@
+//
+// Copyright (c) Microsoft Corporation. All rights reserved.
+//
+
+package com.microsoft.romanapp.core;
+
+import com.microsoft.romanapp.core.simulator.SimulatedDevice;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class DeviceQueryTest {
+
+    private static DeviceRecord device(DeviceKind kind, boolean proximal) {
+        return new DeviceRecord(new SimulatedDevice("id", "DESKTOP-1A2B", kind, proximal));
+    }
+
+    @Test
+    public void spinnerStringsMapToOptions() {
+        assertEquals(DiscoveryType.ALL, DiscoveryType.fromString("All"));
+        assertEquals(DiscoveryType.CLOUD, DiscoveryType.fromString("Cloud"));
+        assertEquals(DiscoveryType.PROXIMAL, DiscoveryType.fromString("Proximal"));
+        assertEquals(DiscoveryType.ALL, DiscoveryType.fromString("Bluetooth"));
+
+        assertEquals(SystemKind.ALL, SystemKind.fromString("All"));
+        assertEquals(SystemKind.DESKTOP, SystemKind.fromString("Desktop"));
+        assertEquals(SystemKind.HOLOGRAPHIC, SystemKind.fromString("Holographic"));
+        assertEquals(SystemKind.PHONE, SystemKind.fromString("Phone"));
+        assertEquals(SystemKind.XBOX, SystemKind.fromString("Xbox"));
+        assertEquals(SystemKind.UNKNOWN, SystemKind.fromString("Toaster"));
+    }
+
+    @Test
+    public void systemKindMapsToDeviceKind() {
+        assertNull(SystemKind.ALL.toDeviceKind());
+        for (SystemKind systemKind : SystemKind.values()) {
+            if (systemKind != SystemKind.ALL) {
+                assertEquals(systemKind.name(), systemKind.toDeviceKind().name());
+            }
+        }
+        assertEquals(DeviceKind.UNKNOWN, DeviceKind.fromName("TOASTER"));
+    }
+
+    @Test
+    public void allMatchesEveryDevice() {
+        DeviceQuery query = new DeviceQuery(DiscoveryType.ALL, SystemKind.ALL);
+
+        for (DeviceKind kind : DeviceKind.values()) {
+            assertTrue(query.matches(device(kind, false)));
+            assertTrue(query.matches(device(kind, true)));
+        }
+    }
+
+    @Test
+    public void cloudMatchesEveryTransport() {
+        DeviceQuery query = new DeviceQuery(DiscoveryType.CLOUD, SystemKind.ALL);
+
+        assertTrue(query.matches(device(DeviceKind.PHONE, false)));
+        assertTrue(query.matches(device(DeviceKind.PHONE, true)));
+    }
+
+    @Test
+    public void proximalNeedsProximity() {
+        DeviceQuery query = new DeviceQuery(DiscoveryType.PROXIMAL, SystemKind.ALL);
+
+        assertFalse(query.matches(device(DeviceKind.PHONE, false)));
+        assertTrue(query.matches(device(DeviceKind.PHONE, true)));
+    }
+
+    @Test
+    public void kindMustMatch() {
+        DeviceQuery query = new DeviceQuery(DiscoveryType.ALL, SystemKind.XBOX);
+
+        assertEquals(DeviceKind.XBOX, query.getKind());
+        assertTrue(query.matches(device(DeviceKind.XBOX, false)));
+        assertFalse(query.matches(device(DeviceKind.DESKTOP, false)));
+    }
+
+    @Test
+    public void typeAndKindAreCombined() {
+        DeviceQuery query = new DeviceQuery(DiscoveryType.PROXIMAL, SystemKind.DESKTOP);
+
+        assertTrue(query.matches(device(DeviceKind.DESKTOP, true)));
+        assertFalse(query.matches(device(DeviceKind.DESKTOP, false)));
+        assertFalse(query.matches(device(DeviceKind.XBOX, true)));
+    }
+}
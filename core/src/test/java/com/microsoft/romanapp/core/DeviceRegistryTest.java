@@ -0,0 +1,241 @@
+//
+// Copyright (c) Microsoft Corporation. All rights reserved.
+//
+
+package com.microsoft.romanapp.core;
+
+import com.microsoft.romanapp.core.simulator.SimulatedDevice;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class DeviceRegistryTest {
+    private DeviceRegistry<DeviceRecord> registry;
+    private List<String> calls;
+
+    @Before
+    public void setUp() {
+        registry = new DeviceRegistry<>();
+        calls = new ArrayList<>();
+        registry.setCallback(new DeviceRegistry.Callback() {
+            @Override
+            public void onInserted(int position) {
+                calls.add("inserted " + position);
+            }
+
+            @Override
+            public void onChanged(int position) {
+                calls.add("changed " + position);
+            }
+
+            @Override
+            public void onMoved(int fromPosition, int toPosition) {
+                calls.add("moved " + fromPosition + " " + toPosition);
+            }
+
+            @Override
+            public void onRemoved(int position) {
+                calls.add("removed " + position);
+            }
+
+            @Override
+            public void onReset() {
+                calls.add("reset");
+            }
+        });
+    }
+
+    private static DeviceRecord device(String id, String name) {
+        return device(id, name, DeviceKind.DESKTOP, false);
+    }
+
+    private static DeviceRecord device(String id, String name, DeviceKind kind, boolean proximal) {
+        return new DeviceRecord(new SimulatedDevice(id, name, kind, proximal));
+    }
+
+    private List<String> names() {
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < registry.size(); i++) {
+            names.add(registry.get(i).getName());
+        }
+        return names;
+    }
+
+    @Test
+    public void addInsertsInNameOrder() {
+        assertEquals(0, registry.add(device("1", "b")));
+        assertEquals(0, registry.add(device("2", "a")));
+        assertEquals(2, registry.add(device("3", "c")));
+        assertEquals(2, registry.add(device("4", "b")));
+
+        assertEquals(Arrays.asList("a", "b", "b", "c"), names());
+        assertEquals(Arrays.asList("inserted 0", "inserted 0", "inserted 2", "inserted 2"), calls);
+    }
+
+    @Test
+    public void equalNamesKeepArrivalOrder() {
+        registry.add(device("1", "same"));
+        registry.add(device("2", "same"));
+        registry.add(device("3", "same"));
+
+        assertEquals("1", registry.get(0).getId());
+        assertEquals("2", registry.get(1).getId());
+        assertEquals("3", registry.get(2).getId());
+    }
+
+    @Test
+    public void addOfKnownIdUpdates() {
+        registry.add(device("1", "a"));
+        calls.clear();
+
+        assertEquals(0, registry.add(device("1", "a", DeviceKind.DESKTOP, true)));
+
+        assertEquals(1, registry.totalSize());
+        assertEquals(Arrays.asList("changed 0"), calls);
+    }
+
+    @Test
+    public void unchangedReportReplacesRecordSilently() {
+        registry.add(device("1", "a"));
+        calls.clear();
+
+        DeviceRecord reported = device("1", "a");
+        assertEquals(0, registry.add(reported));
+
+        assertSame(reported, registry.get(0));
+        assertTrue(calls.isEmpty());
+    }
+
+    @Test
+    public void updateReplacesRecordInPlace() {
+        registry.add(device("1", "a"));
+        registry.add(device("2", "b"));
+        calls.clear();
+
+        DeviceRecord updated = device("2", "b", DeviceKind.XBOX, true);
+        assertEquals(1, registry.update(updated));
+
+        assertSame(updated, registry.get(1));
+        assertSame(updated, registry.getById("2"));
+        assertEquals(Arrays.asList("changed 1"), calls);
+    }
+
+    @Test
+    public void renameMovesRow() {
+        registry.add(device("1", "a"));
+        registry.add(device("2", "b"));
+        registry.add(device("3", "c"));
+        calls.clear();
+
+        assertEquals(2, registry.update(device("1", "d")));
+
+        assertEquals(Arrays.asList("b", "c", "d"), names());
+        assertEquals(Arrays.asList("changed 0", "moved 0 2"), calls);
+    }
+
+    @Test
+    public void cachedUpdateKeepsDiscoveredRecord() {
+        DeviceRecord discovered = device("1", "a");
+        registry.add(discovered);
+        calls.clear();
+
+        assertEquals(0, registry.update(new DeviceRecord("1", "old name", DeviceKind.PHONE, false, 0)));
+
+        assertSame(discovered, registry.getById("1"));
+        assertTrue(calls.isEmpty());
+    }
+
+    @Test
+    public void removeReturnsFormerPosition() {
+        registry.add(device("1", "a"));
+        registry.add(device("2", "b"));
+        registry.add(device("3", "c"));
+        calls.clear();
+
+        assertEquals(1, registry.remove("2"));
+        assertEquals(-1, registry.remove("2"));
+
+        assertEquals(Arrays.asList("a", "c"), names());
+        assertFalse(registry.contains("2"));
+        assertNull(registry.getById("2"));
+        assertEquals(Arrays.asList("removed 1"), calls);
+    }
+
+    @Test
+    public void filterHidesDevicesButKeepsThem() {
+        registry.setFilter(new DeviceQuery(DiscoveryType.ALL, SystemKind.XBOX));
+        calls.clear();
+
+        assertEquals(-1, registry.add(device("1", "a", DeviceKind.DESKTOP, false)));
+        assertEquals(0, registry.add(device("2", "b", DeviceKind.XBOX, false)));
+
+        assertEquals(1, registry.size());
+        assertEquals(2, registry.totalSize());
+        assertEquals(-1, registry.remove("1"));
+        assertEquals(Arrays.asList("inserted 0"), calls);
+    }
+
+    @Test
+    public void updateInOrOutOfFilterInsertsOrRemovesRow() {
+        registry.setFilter(new DeviceQuery(DiscoveryType.PROXIMAL, SystemKind.ALL));
+        registry.add(device("1", "a", DeviceKind.DESKTOP, true));
+        registry.add(device("2", "b", DeviceKind.DESKTOP, false));
+        calls.clear();
+
+        assertEquals(1, registry.update(device("2", "b", DeviceKind.DESKTOP, true)));
+        assertEquals(-1, registry.update(device("1", "a", DeviceKind.DESKTOP, false)));
+
+        assertEquals(Arrays.asList("b"), names());
+        assertEquals(Arrays.asList("inserted 1", "removed 0"), calls);
+    }
+
+    @Test
+    public void setFilterRebuildsRowsAndResets() {
+        registry.add(device("1", "c", DeviceKind.PHONE, false));
+        registry.add(device("2", "b", DeviceKind.DESKTOP, false));
+        registry.add(device("3", "a", DeviceKind.PHONE, false));
+        calls.clear();
+
+        registry.setFilter(new DeviceQuery(DiscoveryType.ALL, SystemKind.PHONE));
+        assertEquals(Arrays.asList("a", "c"), names());
+
+        registry.setFilter(DeviceFilter.ALL);
+        assertEquals(Arrays.asList("a", "b", "c"), names());
+        assertEquals(Arrays.asList("reset", "reset"), calls);
+    }
+
+    @Test
+    public void clearForgetsEverything() {
+        registry.add(device("1", "a"));
+        calls.clear();
+
+        registry.clear();
+
+        assertEquals(0, registry.size());
+        assertEquals(0, registry.totalSize());
+        assertEquals(Arrays.asList("reset"), calls);
+    }
+
+    @Test
+    public void snapshotIsNotChangedByLaterUpdates() {
+        registry.add(device("1", "a"));
+        DeviceSnapshot<DeviceRecord> snapshot = registry.snapshot();
+
+        registry.add(device("2", "b"));
+        registry.update(device("1", "z"));
+
+        assertEquals(1, snapshot.size());
+        assertEquals("a", snapshot.get(0).getName());
+        assertTrue(registry.snapshot().getVersion() > snapshot.getVersion());
+    }
+}
@@ -0,0 +1,131 @@
+//
+// Copyright (c) Microsoft Corporation. All rights reserved.
+//
+
+package com.microsoft.romanapp.core;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class DiscoverySchedulerTest {
+    private static final long QUIET_MS = 10;
+    private static final long MIN_PAUSE_MS = 100;
+    private static final long MAX_PAUSE_MS = 350;
+
+    private long now;
+    private DiscoveryScheduler scheduler;
+
+    @Before
+    public void setUp() {
+        now = 0;
+        scheduler = new DiscoveryScheduler.Builder()
+                .setQuietMs(QUIET_MS)
+                .setPause(MIN_PAUSE_MS, MAX_PAUSE_MS)
+                .setClock(new Clock() {
+                    @Override
+                    public long now() {
+                        return now;
+                    }
+                })
+                .getResult();
+    }
+
+    // Lets the current scan go quiet, then waits out the pause
+    private void quietScan() {
+        now += scheduler.getDelayMs();
+        assertEquals(DiscoveryScheduler.Action.STOP, scheduler.poll());
+        now += scheduler.getDelayMs();
+        assertEquals(DiscoveryScheduler.Action.START, scheduler.poll());
+    }
+
+    @Test
+    public void idleUntilStarted() {
+        assertEquals(DiscoveryScheduler.State.IDLE, scheduler.getState());
+        assertEquals(-1, scheduler.getDelayMs());
+        assertEquals(DiscoveryScheduler.Action.NONE, scheduler.poll());
+        assertEquals(0, scheduler.getDutyCycle(), 0);
+    }
+
+    @Test
+    public void eventsKeepScanRunning() {
+        scheduler.onStarted();
+        now = 8;
+        scheduler.onEvent(false);
+        now = 15;
+
+        assertEquals(DiscoveryScheduler.Action.NONE, scheduler.poll());
+        assertEquals(3, scheduler.getDelayMs());
+        now = 18;
+        assertEquals(DiscoveryScheduler.Action.STOP, scheduler.poll());
+        assertEquals(DiscoveryScheduler.State.PAUSED, scheduler.getState());
+    }
+
+    @Test
+    public void pauseDoublesWhileNothingChanges() {
+        scheduler.onStarted();
+
+        quietScan();
+        assertEquals(200, scheduler.getPauseMs());
+        quietScan();
+        assertEquals(MAX_PAUSE_MS, scheduler.getPauseMs());
+        quietScan();
+        assertEquals(MAX_PAUSE_MS, scheduler.getPauseMs());
+        assertEquals(4, scheduler.getScans());
+    }
+
+    @Test
+    public void changeGoesBackToShortestPause() {
+        scheduler.onStarted();
+        quietScan();
+        quietScan();
+
+        scheduler.onEvent(true);
+        now += scheduler.getDelayMs();
+        scheduler.poll();
+
+        assertEquals(MIN_PAUSE_MS, scheduler.getPauseMs());
+        assertEquals(MIN_PAUSE_MS, scheduler.getDelayMs());
+    }
+
+    @Test
+    public void userStartResetsPause() {
+        scheduler.onStarted();
+        quietScan();
+        scheduler.onStopped();
+
+        assertEquals(DiscoveryScheduler.State.IDLE, scheduler.getState());
+        scheduler.onStarted();
+        assertEquals(MIN_PAUSE_MS, scheduler.getPauseMs());
+    }
+
+    @Test
+    public void eventsOutsideScanAreIgnored() {
+        scheduler.onStarted();
+        now += QUIET_MS;
+        scheduler.poll();
+        long delayMs = scheduler.getDelayMs();
+
+        scheduler.onEvent(true);
+
+        assertEquals(DiscoveryScheduler.State.PAUSED, scheduler.getState());
+        assertEquals(delayMs, scheduler.getDelayMs());
+    }
+
+    @Test
+    public void dutyCycleCountsScanningTime() {
+        scheduler.onStarted();
+        quietScan();
+        now += QUIET_MS;
+        long elapsed = now;
+
+        assertEquals(2 * QUIET_MS, scheduler.getScanningMs());
+        assertEquals(2.0 * QUIET_MS / elapsed, scheduler.getDutyCycle(), 1e-9);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidPauseIsRejected() {
+        new DiscoveryScheduler.Builder().setPause(100, 50);
+    }
+}
@@ -0,0 +1,131 @@
+//
+// Copyright (c) Microsoft Corporation. All rights reserved.
+//
+
+package com.microsoft.romanapp.core;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.NoSuchElementException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class HandleStoreTest {
+    private static final long TTL_MS = 1000;
+
+    private long now;
+    private HandleStore<String> store;
+
+    @Before
+    public void setUp() {
+        now = 0;
+        store = new HandleStore<>(2, TTL_MS, new Clock() {
+            @Override
+            public long now() {
+                return now;
+            }
+        });
+    }
+
+    private void assertMissing(String id) {
+        try {
+            store.get(id);
+            fail(id + " should have been evicted");
+        } catch (NoSuchElementException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void getReturnsStoredHandle() {
+        store.put("a", "handle a");
+
+        assertEquals("handle a", store.get("a"));
+        assertEquals(1, store.getHits());
+        assertEquals(0, store.getMisses());
+    }
+
+    @Test
+    public void unreferencedEntriesStayReadable() {
+        store.put("a", "handle a");
+        store.get("a");
+
+        assertEquals("handle a", store.get("a"));
+    }
+
+    @Test
+    public void missIsCounted() {
+        assertMissing("a");
+        assertEquals(1, store.getMisses());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nullHandleIsRejected() {
+        store.put("a", null);
+    }
+
+    @Test
+    public void leastRecentlyUsedUnreferencedEntryIsEvictedFirst() {
+        store.put("a", "handle a");
+        store.put("b", "handle b");
+        store.get("a");
+        store.get("b");
+        now = 10;
+        // a is now the most recently used
+        store.get("a");
+
+        store.put("c", "handle c");
+
+        assertEquals(2, store.size());
+        assertEquals(1, store.getEvictions());
+        assertMissing("b");
+        assertEquals("handle a", store.get("a"));
+    }
+
+    @Test
+    public void referencedEntriesAreNotEvictedForRoom() {
+        store.put("a", "handle a");
+        store.put("b", "handle b");
+        store.put("c", "handle c");
+
+        // every entry still waits for its get, so the store grows past its capacity
+        assertEquals(3, store.size());
+        assertEquals("handle a", store.get("a"));
+        assertEquals("handle b", store.get("b"));
+        assertEquals("handle c", store.get("c"));
+    }
+
+    @Test
+    public void everyPutTakesItsOwnReference() {
+        store.put("a", "handle a");
+        store.put("a", "handle a");
+        store.get("a");
+        store.put("b", "handle b");
+        store.put("c", "handle c");
+
+        // a still holds one reference, so only room for the others is made
+        assertEquals("handle a", store.get("a"));
+    }
+
+    @Test
+    public void expiredEntriesAreEvictedEvenWhenReferenced() {
+        store.put("a", "handle a");
+        now = TTL_MS + 1;
+
+        assertMissing("a");
+        assertEquals(1, store.getEvictions());
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    public void accessKeepsEntryAlive() {
+        store.put("a", "handle a");
+        now = TTL_MS;
+        store.get("a");
+        now = 2 * TTL_MS;
+
+        assertEquals("handle a", store.get("a"));
+    }
+}
@@ -0,0 +1,112 @@
+//
+// Copyright (c) Microsoft Corporation. All rights reserved.
+//
+
+package com.microsoft.romanapp.core;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PresenceTrackerTest {
+    private static final long STALE_MS = 1000;
+    private static final long EXPIRE_MS = 3000;
+
+    private long now;
+    private PresenceTracker tracker;
+    private List<String> events;
+    private PresenceTracker.Listener listener;
+
+    @Before
+    public void setUp() {
+        now = 0;
+        tracker = new PresenceTracker(STALE_MS, EXPIRE_MS, 100, new Clock() {
+            @Override
+            public long now() {
+                return now;
+            }
+        });
+        events = new ArrayList<>();
+        listener = new PresenceTracker.Listener() {
+            @Override
+            public void onStale(String id) {
+                events.add("stale " + id);
+            }
+
+            @Override
+            public void onExpired(String id) {
+                events.add("expired " + id);
+            }
+        };
+    }
+
+    private List<String> sweepAt(long time) {
+        now = time;
+        events.clear();
+        tracker.sweep(listener);
+        return new ArrayList<>(events);
+    }
+
+    @Test
+    public void silentDeviceGoesStaleThenExpires() {
+        tracker.touch("a");
+
+        assertEquals(Collections.<String>emptyList(), sweepAt(STALE_MS - 1));
+        assertEquals(Arrays.asList("stale a"), sweepAt(STALE_MS));
+        assertTrue(tracker.isStale("a"));
+        assertEquals(Collections.<String>emptyList(), sweepAt(STALE_MS + EXPIRE_MS - 1));
+        assertEquals(Arrays.asList("expired a"), sweepAt(STALE_MS + EXPIRE_MS));
+        assertFalse(tracker.isStale("a"));
+        assertEquals(0, tracker.size());
+    }
+
+    @Test
+    public void touchKeepsDeviceFresh() {
+        tracker.touch("a");
+        now = 900;
+        tracker.touch("a");
+
+        assertEquals(Collections.<String>emptyList(), sweepAt(1500));
+        assertEquals(Arrays.asList("stale a"), sweepAt(1900));
+    }
+
+    @Test
+    public void touchRevivesStaleDevice() {
+        tracker.touch("a");
+        sweepAt(STALE_MS);
+        tracker.touch("a");
+
+        assertFalse(tracker.isStale("a"));
+        assertEquals(Collections.<String>emptyList(), sweepAt(2 * STALE_MS - 1));
+        assertEquals(Arrays.asList("stale a"), sweepAt(2 * STALE_MS));
+    }
+
+    @Test
+    public void forgottenDeviceIsNotReported() {
+        tracker.touch("a");
+        tracker.touch("b");
+        tracker.forget("a");
+
+        assertEquals(Arrays.asList("stale b"), sweepAt(STALE_MS));
+        assertEquals(1, tracker.size());
+    }
+
+    @Test
+    public void clearForgetsEverything() {
+        tracker.touch("a");
+        sweepAt(STALE_MS);
+        tracker.clear();
+
+        assertFalse(tracker.isStale("a"));
+        assertEquals(0, tracker.size());
+        assertEquals(Collections.<String>emptyList(), sweepAt(STALE_MS + EXPIRE_MS));
+    }
+}
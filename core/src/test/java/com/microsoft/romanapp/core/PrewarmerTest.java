@@ -0,0 +1,190 @@
+//
+// Copyright (c) Microsoft Corporation. All rights reserved.
+//
+
+package com.microsoft.romanapp.core;
+
+import com.microsoft.romanapp.core.simulator.SimulatedDevice;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PrewarmerTest {
+    private static final long UNUSED_MS = 30 * 1000;
+
+    private long now;
+    private List<String> calls;
+    private boolean refuse;
+    private Prewarmer prewarmer;
+
+    @Before
+    public void setUp() {
+        now = 0;
+        calls = new ArrayList<>();
+        refuse = false;
+        LaunchBackend backend = new LaunchBackend() {
+            @Override
+            public void launchUri(RemoteDevice device, String uri, LaunchCallback callback) {
+                calls.add("launch " + device.getId());
+                callback.onCompleted(LaunchStatus.SUCCESS);
+            }
+        };
+        Prewarmer.Warmer warmer = new Prewarmer.Warmer() {
+            @Override
+            public void prewarm(RemoteDevice device) throws BackendException {
+                if (refuse) {
+                    throw new BackendException("Cannot prewarm");
+                }
+                calls.add("prewarm " + device.getId());
+            }
+
+            @Override
+            public void cancel(String id) {
+                calls.add("cancel " + id);
+            }
+        };
+        prewarmer = new Prewarmer(backend, warmer, 2, UNUSED_MS, new Clock() {
+            @Override
+            public long now() {
+                return now;
+            }
+        });
+        prewarmer.setEnabled(true);
+    }
+
+    private static RemoteDevice device(String id) {
+        return new SimulatedDevice(id, "Device " + id, DeviceKind.DESKTOP, false);
+    }
+
+    private void launch(String id) throws BackendException {
+        prewarmer.launchUri(device(id), "https://bing.com", new LaunchCallback() {
+            @Override
+            public void onCompleted(LaunchStatus status) {
+            }
+        });
+    }
+
+    @Test
+    public void disabledPrewarmerDoesNothing() {
+        prewarmer.setEnabled(false);
+
+        assertFalse(prewarmer.prewarm(device("1")));
+        assertTrue(calls.isEmpty());
+    }
+
+    @Test
+    public void warmDeviceIsNotPrewarmedTwice() {
+        assertTrue(prewarmer.prewarm(device("1")));
+        assertFalse(prewarmer.prewarm(device("1")));
+
+        assertEquals(Arrays.asList("prewarm 1"), calls);
+        assertEquals(1, prewarmer.getStarted());
+    }
+
+    @Test
+    public void oldestWarmDeviceMakesRoom() {
+        prewarmer.prewarm(device("1"));
+        now = 10;
+        prewarmer.prewarm(device("2"));
+        now = 20;
+        prewarmer.prewarm(device("3"));
+
+        assertEquals(Arrays.asList("prewarm 1", "prewarm 2", "cancel 1", "prewarm 3"), calls);
+        assertEquals(1, prewarmer.getCancelled());
+    }
+
+    @Test
+    public void unusedDeviceExpires() {
+        prewarmer.prewarm(device("1"));
+        now = UNUSED_MS - 1;
+        prewarmer.prewarm(device("2"));
+        now = UNUSED_MS;
+        calls.clear();
+
+        // the expired device is warmed again rather than being reported as warm
+        assertTrue(prewarmer.prewarm(device("1")));
+
+        assertEquals(Arrays.asList("cancel 1", "prewarm 1"), calls);
+    }
+
+    @Test
+    public void launchUsesWarmDevice() throws BackendException {
+        prewarmer.prewarm(device("1"));
+        launch("1");
+        launch("2");
+
+        assertEquals(1, prewarmer.getUsed());
+        assertEquals(Arrays.asList("prewarm 1", "launch 1", "launch 2"), calls);
+        // nothing is left warm to cancel
+        prewarmer.release("1");
+        assertEquals(0, prewarmer.getCancelled());
+    }
+
+    @Test
+    public void releaseCancelsWarmDevice() {
+        prewarmer.prewarm(device("1"));
+        prewarmer.release("1");
+        prewarmer.release("2");
+
+        assertEquals(Arrays.asList("prewarm 1", "cancel 1"), calls);
+        assertEquals(1, prewarmer.getCancelled());
+    }
+
+    @Test
+    public void refusedPrewarmIsNotCounted() {
+        refuse = true;
+
+        assertFalse(prewarmer.prewarm(device("1")));
+        assertEquals(0, prewarmer.getStarted());
+    }
+
+    @Test
+    public void disablingCancelsEveryWarmDevice() {
+        prewarmer.prewarm(device("1"));
+        prewarmer.prewarm(device("2"));
+        calls.clear();
+
+        prewarmer.setEnabled(false);
+
+        Collections.sort(calls);
+        assertEquals(Arrays.asList("cancel 1", "cancel 2"), calls);
+        assertEquals(2, prewarmer.getCancelled());
+        assertTrue(prewarmer.getStats().endsWith("warm 0"));
+    }
+
+    @Test
+    public void mostLaunchedDevicesAreRanked() throws BackendException {
+        launch("1");
+        launch("2");
+        launch("2");
+        launch("3");
+        launch("3");
+        launch("3");
+
+        assertEquals(Arrays.asList("3", "2"), prewarmer.getMostLaunched(2));
+        assertEquals(Arrays.asList("3", "2", "1"), prewarmer.getMostLaunched(5));
+    }
+
+    @Test
+    public void onlyFrequentDevicesArePrewarmed() throws BackendException {
+        launch("1");
+        launch("2");
+        launch("2");
+        calls.clear();
+
+        assertFalse(prewarmer.prewarmIfFrequent(device("1"), 1));
+        assertFalse(prewarmer.prewarmIfFrequent(device("3"), 1));
+        assertTrue(prewarmer.prewarmIfFrequent(device("2"), 1));
+
+        assertEquals(Arrays.asList("prewarm 2"), calls);
+    }
+}
@@ -0,0 +1,225 @@
+//
+// Copyright (c) Microsoft Corporation. All rights reserved.
+//
+
+package com.microsoft.romanapp.core;
+
+import com.microsoft.romanapp.core.simulator.SimulatedDevice;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class RetryingLaunchBackendTest {
+    private static final long OPEN_MS = 30 * 1000;
+
+    private final RemoteDevice device = new SimulatedDevice("1", "DESKTOP-1A2B", DeviceKind.DESKTOP, false);
+
+    private volatile long now;
+    private ScheduledExecutorService scheduler;
+    // outcomes of the next attempts, null makes the attempt throw
+    private Queue<LaunchStatus> outcomes;
+    private int attempts;
+    private List<String> events;
+
+    @Before
+    public void setUp() {
+        now = 0;
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+        outcomes = new LinkedList<>();
+        attempts = 0;
+        events = new ArrayList<>();
+    }
+
+    @After
+    public void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    private RetryingLaunchBackend backend(int maxAttempts, int failureThreshold) {
+        LaunchBackend flaky = new LaunchBackend() {
+            @Override
+            public void launchUri(RemoteDevice device, String uri, LaunchCallback callback) throws BackendException {
+                LaunchStatus status;
+                synchronized (RetryingLaunchBackendTest.this) {
+                    attempts++;
+                    status = outcomes.poll();
+                }
+                if (status == null) {
+                    throw new BackendException("Could not start the launch");
+                }
+                callback.onCompleted(status);
+            }
+        };
+        RetryPolicy policy = new RetryPolicy.Builder()
+                .setMaxAttempts(maxAttempts)
+                .setBackoff(0, 0, 1)
+                .getResult();
+        CircuitBreaker breaker = new CircuitBreaker(failureThreshold, OPEN_MS, new Clock() {
+            @Override
+            public long now() {
+                return now;
+            }
+        });
+        RetryingLaunchBackend backend = new RetryingLaunchBackend(flaky, policy, breaker, scheduler);
+        backend.addListener(new LaunchAttemptListener() {
+            @Override
+            public void onRetryScheduled(RemoteDevice remote, int attempt, LaunchStatus status, long delayMs) {
+                record("retry " + attempt);
+            }
+
+            @Override
+            public void onRejected(RemoteDevice remote, long retryInMs) {
+                record("rejected");
+            }
+
+            @Override
+            public void onCircuitStateChanged(RemoteDevice remote, CircuitBreaker.State state, int failures) {
+                record(state + " " + failures);
+            }
+        });
+        return backend;
+    }
+
+    private synchronized void record(String event) {
+        events.add(event);
+    }
+
+    private void outcomes(LaunchStatus... statuses) {
+        outcomes.addAll(Arrays.asList(statuses));
+    }
+
+    private LaunchStatus launch(RetryingLaunchBackend backend) throws Exception {
+        final BlockingQueue<LaunchStatus> result = new ArrayBlockingQueue<>(2);
+        backend.launchUri(device, "https://bing.com", new LaunchCallback() {
+            @Override
+            public void onCompleted(LaunchStatus status) {
+                result.add(status);
+            }
+        });
+        LaunchStatus status = result.poll(5, TimeUnit.SECONDS);
+        if (status == null) {
+            fail("The launch did not complete");
+        }
+        // the callback is called only once
+        assertEquals(null, result.poll(20, TimeUnit.MILLISECONDS));
+        return status;
+    }
+
+    @Test
+    public void retriesTransientFailures() throws Exception {
+        RetryingLaunchBackend backend = backend(4, 4);
+        outcomes(LaunchStatus.REMOTE_SYSTEM_UNAVAILABLE, LaunchStatus.UNKNOWN, LaunchStatus.SUCCESS);
+
+        assertEquals(LaunchStatus.SUCCESS, launch(backend));
+
+        assertEquals(3, attempts);
+        assertEquals(Arrays.asList("retry 1", "retry 2"), events);
+        assertEquals(CircuitBreaker.State.CLOSED, backend.getCircuitBreaker().getState("1"));
+    }
+
+    @Test
+    public void otherFailuresAreNotRetried() throws Exception {
+        RetryingLaunchBackend backend = backend(4, 4);
+        outcomes(LaunchStatus.APP_UNAVAILABLE);
+
+        assertEquals(LaunchStatus.APP_UNAVAILABLE, launch(backend));
+
+        assertEquals(1, attempts);
+        assertEquals(0, backend.getCircuitBreaker().getFailures("1"));
+    }
+
+    @Test
+    public void everyAttemptRunsWhenThresholdCoversThem() throws Exception {
+        RetryingLaunchBackend backend = backend(4, 4);
+        outcomes(LaunchStatus.UNKNOWN, LaunchStatus.UNKNOWN, LaunchStatus.UNKNOWN, LaunchStatus.UNKNOWN);
+
+        assertEquals(LaunchStatus.UNKNOWN, launch(backend));
+
+        assertEquals(4, attempts);
+        assertEquals(Arrays.asList("retry 1", "retry 2", "retry 3", "OPEN 4"), events);
+    }
+
+    @Test
+    public void openedCircuitEndsRetries() throws Exception {
+        RetryingLaunchBackend backend = backend(4, 2);
+        outcomes(LaunchStatus.UNKNOWN, LaunchStatus.UNKNOWN, LaunchStatus.SUCCESS);
+
+        assertEquals(LaunchStatus.UNKNOWN, launch(backend));
+
+        assertEquals(2, attempts);
+        assertEquals(Arrays.asList("retry 1", "OPEN 2"), events);
+    }
+
+    @Test
+    public void openCircuitFailsFast() throws Exception {
+        RetryingLaunchBackend backend = backend(1, 1);
+        outcomes(LaunchStatus.UNKNOWN, LaunchStatus.SUCCESS);
+        launch(backend);
+        events.clear();
+
+        assertEquals(LaunchStatus.REMOTE_SYSTEM_UNAVAILABLE, launch(backend));
+
+        assertEquals(1, attempts);
+        assertEquals(Arrays.asList("rejected"), events);
+    }
+
+    @Test
+    public void halfOpenTrialClosesCircuit() throws Exception {
+        RetryingLaunchBackend backend = backend(1, 1);
+        outcomes(LaunchStatus.UNKNOWN, LaunchStatus.SUCCESS);
+        launch(backend);
+        now = OPEN_MS;
+        events.clear();
+
+        assertEquals(LaunchStatus.SUCCESS, launch(backend));
+
+        assertEquals(Arrays.asList("CLOSED 0"), events);
+    }
+
+    @Test
+    public void halfOpenTrialThatThrowsReopensCircuit() throws Exception {
+        RetryingLaunchBackend backend = backend(1, 1);
+        outcomes(LaunchStatus.UNKNOWN);
+        launch(backend);
+        now = OPEN_MS;
+
+        try {
+            launch(backend);
+            fail("The launch should have thrown");
+        } catch (BackendException e) {
+            // expected
+        }
+
+        CircuitBreaker breaker = backend.getCircuitBreaker();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState("1"));
+        now = 2 * OPEN_MS;
+        assertTrue(breaker.allow("1"));
+    }
+
+    @Test
+    public void retryThatThrowsCountsAsFailure() throws Exception {
+        RetryingLaunchBackend backend = backend(4, 4);
+        outcomes(LaunchStatus.REMOTE_SYSTEM_UNAVAILABLE);
+
+        assertEquals(LaunchStatus.REMOTE_SYSTEM_UNAVAILABLE, launch(backend));
+
+        assertEquals(2, attempts);
+        assertEquals(2, backend.getCircuitBreaker().getFailures("1"));
+    }
+}
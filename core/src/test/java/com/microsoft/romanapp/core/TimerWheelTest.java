@@ -0,0 +1,158 @@
+//
+// Copyright (c) Microsoft Corporation. All rights reserved.
+//
+
+package com.microsoft.romanapp.core;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TimerWheelTest {
+    private static final long TICK_MS = 10;
+
+    // 8 slots of 10 ms, one turn is 80 ms
+    private TimerWheel<String> wheel;
+
+    @Before
+    public void setUp() {
+        wheel = new TimerWheel<>(8, TICK_MS, 0);
+    }
+
+    @Test
+    public void slotCountIsRoundedUpToPowerOfTwo() {
+        assertEquals(8 * TICK_MS, new TimerWheel<String>(5, TICK_MS, 0).getSpanMs());
+        assertEquals(TICK_MS, new TimerWheel<String>(1, TICK_MS, 0).getSpanMs());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void emptyWheelIsRejected() {
+        new TimerWheel<String>(0, TICK_MS, 0);
+    }
+
+    @Test
+    public void expiresAtDeadline() {
+        wheel.schedule("a", 25);
+
+        assertEquals(Collections.<String>emptyList(), wheel.advance(24));
+        assertEquals(Arrays.asList("a"), wheel.advance(25));
+        assertFalse(wheel.contains("a"));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void expiresInTickOrder() {
+        wheel.schedule("c", 45);
+        wheel.schedule("a", 5);
+        wheel.schedule("b", 22);
+
+        assertEquals(Arrays.asList("a", "b", "c"), wheel.advance(50));
+    }
+
+    @Test
+    public void scheduleReplacesDeadline() {
+        wheel.schedule("a", 20);
+        wheel.schedule("a", 60);
+
+        assertEquals(1, wheel.size());
+        assertEquals(Collections.<String>emptyList(), wheel.advance(50));
+        assertEquals(Arrays.asList("a"), wheel.advance(60));
+    }
+
+    @Test
+    public void cancelRemovesTimer() {
+        wheel.schedule("a", 20);
+        wheel.schedule("b", 20);
+
+        assertTrue(wheel.cancel("a"));
+        assertFalse(wheel.cancel("a"));
+        assertEquals(Arrays.asList("b"), wheel.advance(20));
+    }
+
+    @Test
+    public void pastDeadlineExpiresOnNextAdvance() {
+        wheel.advance(100);
+        wheel.schedule("a", 30);
+
+        assertEquals(Arrays.asList("a"), wheel.advance(100));
+    }
+
+    @Test
+    public void deadlinesBeyondOneTurnWait() {
+        wheel.schedule("a", 200);
+
+        assertEquals(Collections.<String>emptyList(), wheel.advance(120));
+        assertEquals(Collections.<String>emptyList(), wheel.advance(199));
+        assertEquals(Arrays.asList("a"), wheel.advance(200));
+    }
+
+    @Test
+    public void longPauseExpiresEverythingDue() {
+        wheel.schedule("a", 10);
+        wheel.schedule("b", 70);
+        wheel.schedule("c", 1000);
+
+        List<String> expired = wheel.advance(500);
+
+        Collections.sort(expired);
+        assertEquals(Arrays.asList("a", "b"), expired);
+        assertTrue(wheel.contains("c"));
+    }
+
+    @Test
+    public void clearDropsEveryTimer() {
+        wheel.schedule("a", 10);
+        wheel.clear();
+
+        assertEquals(0, wheel.size());
+        assertEquals(Collections.<String>emptyList(), wheel.advance(100));
+    }
+
+    @Test
+    public void agreesWithSortedDeadlines() {
+        Random random = new Random(3);
+        Map<Integer, Long> deadlines = new HashMap<>();
+        long now = 0;
+        for (int step = 0; step < 2000; step++) {
+            int key = random.nextInt(50);
+            switch (random.nextInt(3)) {
+                case 0:
+                    long deadline = now + random.nextInt(300) - 20;
+                    wheel.schedule(String.valueOf(key), deadline);
+                    deadlines.put(key, deadline);
+                    break;
+                case 1:
+                    assertEquals(deadlines.remove(key) != null, wheel.cancel(String.valueOf(key)));
+                    break;
+                default:
+                    now += random.nextInt(40);
+                    List<String> expected = new ArrayList<>();
+                    Iterator<Map.Entry<Integer, Long>> it = deadlines.entrySet().iterator();
+                    while (it.hasNext()) {
+                        Map.Entry<Integer, Long> entry = it.next();
+                        if (entry.getValue() <= now) {
+                            expected.add(String.valueOf(entry.getKey()));
+                            it.remove();
+                        }
+                    }
+                    List<String> expired = wheel.advance(now);
+                    Collections.sort(expected);
+                    Collections.sort(expired);
+                    assertEquals(expected, expired);
+            }
+            assertEquals(deadlines.size(), wheel.size());
+        }
+    }
+}
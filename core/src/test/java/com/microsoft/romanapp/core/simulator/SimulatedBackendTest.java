@@ -0,0 +1,164 @@
+//
+// Copyright (c) Microsoft Corporation. All rights reserved.
+//
+
+package com.microsoft.romanapp.core.simulator;
+
+import com.microsoft.romanapp.core.DiscoveryListener;
+import com.microsoft.romanapp.core.LaunchCallback;
+import com.microsoft.romanapp.core.LaunchStatus;
+import com.microsoft.romanapp.core.RemoteDevice;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SimulatedBackendTest {
+    private final List<SimulatedBackend> backends = new ArrayList<>();
+
+    @After
+    public void tearDown() {
+        for (SimulatedBackend backend : backends) {
+            backend.shutdown();
+        }
+    }
+
+    private SimulatedBackend backend(SimulatorConfig.Builder config) {
+        SimulatedBackend backend = new SimulatedBackend(config.getResult());
+        backends.add(backend);
+        return backend;
+    }
+
+    // Records the first events of a run as "added id", "updated id" or "removed id"
+    private static List<String> record(SimulatedBackend backend, int count) throws Exception {
+        final BlockingQueue<String> events = new LinkedBlockingQueue<>();
+        backend.start(new DiscoveryListener() {
+            @Override
+            public void onDeviceAdded(RemoteDevice device) {
+                events.add("added " + device.getId());
+            }
+
+            @Override
+            public void onDeviceUpdated(RemoteDevice device) {
+                events.add("updated " + device.getId());
+            }
+
+            @Override
+            public void onDeviceRemoved(String id) {
+                events.add("removed " + id);
+            }
+        });
+        List<String> recorded = new ArrayList<>();
+        while (recorded.size() < count) {
+            String event = events.poll(5, TimeUnit.SECONDS);
+            if (event == null) {
+                fail("Only " + recorded.size() + " of " + count + " events arrived");
+            }
+            recorded.add(event);
+        }
+        backend.stop();
+        return recorded;
+    }
+
+    private static SimulatorConfig.Builder churn() {
+        // a tick of 10 ms applies 10 adds, 5 updates and 2 removals
+        return new SimulatorConfig.Builder()
+                .setDeviceCount(1000)
+                .setAddsPerSecond(1000)
+                .setUpdatesPerSecond(500)
+                .setRemovesPerSecond(200);
+    }
+
+    @Test
+    public void eventsFollowConfiguredRates() throws Exception {
+        List<String> events = record(backend(churn()), 17 * 20);
+
+        for (int tick = 0; tick < 20; tick++) {
+            for (int i = 0; i < 17; i++) {
+                String type = events.get(tick * 17 + i).split(" ")[0];
+                assertEquals("event " + i + " of tick " + tick, i < 10 ? "added" : i < 15 ? "updated" : "removed", type);
+            }
+        }
+    }
+
+    @Test
+    public void sameSeedGivesSameEvents() throws Exception {
+        List<String> first = record(backend(churn().setSeed(7)), 500);
+        List<String> second = record(backend(churn().setSeed(7)), 500);
+        List<String> other = record(backend(churn().setSeed(8)), 500);
+
+        assertEquals(first, second);
+        assertFalse(first.equals(other));
+    }
+
+    @Test
+    public void launchesDoNotDisturbEvents() throws Exception {
+        List<String> quiet = record(backend(churn()), 300);
+        SimulatedBackend busy = backend(churn().setLaunchLatency(0, 0));
+        for (int i = 0; i < 100; i++) {
+            busy.launchUri(null, "https://bing.com", new LaunchCallback() {
+                @Override
+                public void onCompleted(LaunchStatus status) {
+                }
+            });
+        }
+
+        assertEquals(quiet, record(busy, 300));
+    }
+
+    @Test
+    public void wholeFleetArrivesWithoutAddRate() throws Exception {
+        List<String> events = record(backend(new SimulatorConfig.Builder()
+                .setDeviceCount(50)
+                .setUpdatesPerSecond(0)
+                .setRemovesPerSecond(0)), 50);
+
+        for (String event : events) {
+            assertTrue(event, event.startsWith("added "));
+        }
+    }
+
+    @Test
+    public void launchStatusesFollowFailureRates() throws Exception {
+        int launches = 5000;
+        SimulatedBackend backend = backend(new SimulatorConfig.Builder()
+                .setLaunchLatency(0, 0)
+                .setFailureRate(LaunchStatus.REMOTE_SYSTEM_UNAVAILABLE, 0.2)
+                .setFailureRate(LaunchStatus.APP_UNAVAILABLE, 0.1));
+        final Map<LaunchStatus, Integer> counts = new EnumMap<>(LaunchStatus.class);
+        final CountDownLatch done = new CountDownLatch(launches);
+        for (int i = 0; i < launches; i++) {
+            backend.launchUri(null, "https://bing.com", new LaunchCallback() {
+                @Override
+                public void onCompleted(LaunchStatus status) {
+                    synchronized (counts) {
+                        Integer count = counts.get(status);
+                        counts.put(status, count == null ? 1 : count + 1);
+                    }
+                    done.countDown();
+                }
+            });
+        }
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+
+        synchronized (counts) {
+            assertEquals(3, counts.size());
+            assertEquals(0.7, counts.get(LaunchStatus.SUCCESS) / (double) launches, 0.03);
+            assertEquals(0.2, counts.get(LaunchStatus.REMOTE_SYSTEM_UNAVAILABLE) / (double) launches, 0.03);
+            assertEquals(0.1, counts.get(LaunchStatus.APP_UNAVAILABLE) / (double) launches, 0.03);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+//
+// Copyright (c) Microsoft Corporation. All rights reserved.
+//
+
+package com.microsoft.romanapp.core.trace;
+
+import com.microsoft.romanapp.core.BackendException;
+import com.microsoft.romanapp.core.DeviceKind;
+import com.microsoft.romanapp.core.DiscoveryListener;
+import com.microsoft.romanapp.core.RemoteDevice;
+import com.microsoft.romanapp.core.simulator.SimulatedDevice;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class TraceReplayBackendTest {
+    private File file;
+    private final BlockingQueue<String> delivered = new LinkedBlockingQueue<>();
+    private final DiscoveryListener listener = new DiscoveryListener() {
+        @Override
+        public void onDeviceAdded(RemoteDevice device) {
+            delivered.add("added " + device.getId() + " " + device.getDisplayName());
+        }
+
+        @Override
+        public void onDeviceUpdated(RemoteDevice device) {
+            delivered.add("updated " + device.getId() + " " + device.getDisplayName());
+        }
+
+        @Override
+        public void onDeviceRemoved(String id) {
+            delivered.add("removed " + id);
+        }
+    };
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("discovery", ".trace");
+        TraceWriter writer = new TraceWriter(new FileOutputStream(file));
+        writer.added(new SimulatedDevice("1", "DESKTOP-1A2B", DeviceKind.DESKTOP, true));
+        writer.updated(new SimulatedDevice("1", "Office PC", DeviceKind.DESKTOP, true));
+        writer.removed("1");
+        writer.close();
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    private List<String> take(int count) throws InterruptedException {
+        List<String> events = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            String event = delivered.poll(5, TimeUnit.SECONDS);
+            if (event == null) {
+                break;
+            }
+            events.add(event);
+        }
+        return events;
+    }
+
+    @Test
+    public void everyStartReplaysTheTrace() throws Exception {
+        TraceReplayBackend backend = new TraceReplayBackend(file, 0);
+        List<String> expected = Arrays.asList("added 1 DESKTOP-1A2B", "updated 1 Office PC", "removed 1");
+
+        backend.start(listener);
+        assertEquals(expected, take(3));
+        backend.start(listener);
+        assertEquals(expected, take(3));
+        backend.stop();
+
+        assertNull(delivered.poll(50, TimeUnit.MILLISECONDS));
+    }
+
+    @Test(expected = BackendException.class)
+    public void missingTraceCannotStart() throws BackendException {
+        new TraceReplayBackend(new File(file.getPath() + ".missing"), 0).start(listener);
+    }
+}
@@ -0,0 +1,112 @@
+//
+// Copyright (c) Microsoft Corporation. All rights reserved.
+//
+
+package com.microsoft.romanapp.core.trace;
+
+import com.microsoft.romanapp.core.DeviceKind;
+import com.microsoft.romanapp.core.DiscoveryListener;
+import com.microsoft.romanapp.core.RemoteDevice;
+import com.microsoft.romanapp.core.simulator.SimulatedDevice;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TraceRoundTripTest {
+
+    private static byte[] record() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        TraceWriter writer = new TraceWriter(bytes);
+        writer.added(new SimulatedDevice("1", "DESKTOP-1A2B", DeviceKind.DESKTOP, true));
+        writer.added(new SimulatedDevice("2", "Living Room Xbox", DeviceKind.XBOX, false));
+        writer.updated(new SimulatedDevice("1", "Office PC", DeviceKind.DESKTOP, false));
+        writer.removed("2");
+        // repeated ids and names are written once
+        writer.added(new SimulatedDevice("2", "Living Room Xbox", DeviceKind.XBOX, false));
+        assertEquals(5, writer.getEvents());
+        writer.close();
+        return bytes.toByteArray();
+    }
+
+    private static String describe(TraceEvent event) {
+        RemoteDevice device = event.getDevice();
+        return event.getType() + " " + event.getDeviceId() + (device == null ? ""
+                : " " + device.getDisplayName() + " " + device.getKind() + " " + device.isAvailableByProximity());
+    }
+
+    @Test
+    public void eventsRoundTrip() throws IOException {
+        TraceReader reader = new TraceReader(new ByteArrayInputStream(record()));
+        List<TraceEvent> events = reader.readAll();
+
+        List<String> described = new ArrayList<>();
+        long timeMicros = 0;
+        for (TraceEvent event : events) {
+            described.add(describe(event));
+            assertTrue(event.getTimeMicros() >= timeMicros);
+            assertEquals(Thread.currentThread().getId(), event.getThreadId());
+            timeMicros = event.getTimeMicros();
+        }
+        assertEquals(Arrays.asList(
+                "ADDED 1 DESKTOP-1A2B DESKTOP true",
+                "ADDED 2 Living Room Xbox XBOX false",
+                "UPDATED 1 Office PC DESKTOP false",
+                "REMOVED 2",
+                "ADDED 2 Living Room Xbox XBOX false"), described);
+        assertNull(reader.next());
+        assertTrue(reader.getStartTimeMs() <= System.currentTimeMillis());
+    }
+
+    @Test
+    public void recordCutShortEndsTrace() throws IOException {
+        byte[] trace = record();
+        // the last record is torn, the ones before it are intact
+        byte[] torn = Arrays.copyOf(trace, trace.length - 2);
+
+        List<TraceEvent> events = new TraceReader(new ByteArrayInputStream(torn)).readAll();
+
+        assertEquals(4, events.size());
+        assertEquals(TraceEvent.Type.REMOVED, events.get(3).getType());
+    }
+
+    @Test(expected = IOException.class)
+    public void otherFilesAreRejected() throws IOException {
+        new TraceReader(new ByteArrayInputStream(new byte[] {1, 2, 3, 4, 5, 6, 7, 8}));
+    }
+
+    @Test
+    public void replayDeliversEveryEvent() throws Exception {
+        final List<String> delivered = new ArrayList<>();
+        TraceReplayer replayer = new TraceReplayer(new TraceReader(new ByteArrayInputStream(record())), 0);
+
+        int events = replayer.replay(new DiscoveryListener() {
+            @Override
+            public void onDeviceAdded(RemoteDevice device) {
+                delivered.add("added " + device.getId());
+            }
+
+            @Override
+            public void onDeviceUpdated(RemoteDevice device) {
+                delivered.add("updated " + device.getId());
+            }
+
+            @Override
+            public void onDeviceRemoved(String id) {
+                delivered.add("removed " + id);
+            }
+        });
+
+        assertEquals(5, events);
+        assertEquals(Arrays.asList("added 1", "added 2", "updated 1", "removed 2", "added 2"), delivered);
+    }
+}